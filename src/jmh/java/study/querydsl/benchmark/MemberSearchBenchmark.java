@@ -0,0 +1,168 @@
+package study.querydsl.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import jakarta.persistence.EntityManager;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.memory.InMemoryMemberSearch;
+import study.querydsl.memory.MemberCountIndex;
+import study.querydsl.memory.TeamStatsSummary;
+import study.querydsl.repository.MemberJdbcSearch;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberSearchTemplates;
+
+/**
+ * MemberJpaRepository.search/searchByBuilder, MemberRepository.searchPageSimple/searchPageComplex 비교.
+ * searchTemplates/searchJdbc 는 같은 조건의 JPA(미리 만든 JPQL) 경로와 JDBC 경로를 비교한다.
+ * 결과 캐시(MemberSearchResultCache)는 꺼서 모든 메소드가 매번 쿼리를 돈다.
+ * 인메모리 H2 에 members 명을 teams 개 팀으로 나눠 넣고, 선택도가 높은 조건(username 한건)과
+ * 낮은 조건(나이 범위, 대략 절반)을 각각 돌린다.
+ *
+ * ./gradlew jmh -PjmhMembers=10000,1000000 -PjmhTeams=10
+ * 결과는 build/results/jmh/results.json, 처리량과 함께 gc 프로파일러의 gc.alloc.rate(.norm) 을 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MemberSearchBenchmark {
+
+    private static final int INSERT_BATCH = 10_000;
+
+    @Param("10000")
+    int members;
+
+    @Param("10")
+    int teams;
+
+    @Param({"selective", "unselective"})
+    String condition;
+
+    private ConfigurableApplicationContext context;
+    private MemberJpaRepository memberJpaRepository;
+    private MemberRepository memberRepository;
+    private MemberSearchTemplates memberSearchTemplates;
+    private MemberJdbcSearch memberJdbcSearch;
+    private EntityManager em;
+    private TransactionTemplate readOnly;
+    private MemberSearchCondition searchCondition;
+    private Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // properties() 는 기본값이라 application.yml 에 밀린다, 명령행 인자로 줘야 덮어쓴다
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .run(
+                        // profiles() 는 local 에 더해질 뿐이라 initMember(@Profile("local")) 가 먼저 넣은 id 와 겹친다
+                        "--spring.profiles.active=bench",
+                        "--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--logging.level.root=warn",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--server.port=0",
+                        // 매번 같은 조건이라 결과 캐시가 켜져 있으면 쿼리 경로가 아니라 캐시 적중을 재게 된다
+                        "--member.result-cache.max-size=0B");
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        memberRepository = context.getBean(MemberRepository.class);
+        memberSearchTemplates = context.getBean(MemberSearchTemplates.class);
+        memberJdbcSearch = context.getBean(MemberJdbcSearch.class);
+        em = context.getBean(EntityManager.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        seed(context.getBean(JdbcTemplate.class));
+        // JDBC 로 넣은 행은 MemberChangeHub 를 거치지 않으니 기동시 만들어진 메모리 인덱스들을 다시 만든다
+        context.getBeanProvider(MemberCountIndex.class).ifAvailable(MemberCountIndex::rebuild);
+        context.getBeanProvider(TeamStatsSummary.class).ifAvailable(TeamStatsSummary::rebuild);
+        context.getBeanProvider(InMemoryMemberSearch.class).ifAvailable(InMemoryMemberSearch::reload);
+
+        searchCondition = new MemberSearchCondition();
+        if ("selective".equals(condition)) {
+            searchCondition.setUsername("member" + (members / 2));
+            searchCondition.setTeamName("team" + ((members / 2) % teams));
+        } else {
+            searchCondition.setAgeGoe(20);
+            searchCondition.setAgeLoe(69);
+        }
+        pageable = PageRequest.of(10, 20);
+    }
+
+    // JPA 를 거치지 않고 JDBC 배치로 바로 넣는다, 읽기 전용 벤치마크라 id 는 직접 부여
+    private void seed(JdbcTemplate jdbcTemplate) {
+        List<Object[]> teamRows = new ArrayList<>(teams);
+        for (int i = 0; i < teams; i++) {
+            teamRows.add(new Object[] {(long) i + 1, "team" + i});
+        }
+        jdbcTemplate.batchUpdate("insert into team (id, name) values (?, ?)", teamRows);
+
+        List<Object[]> memberRows = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < members; i++) {
+            memberRows.add(new Object[] {(long) i + 1, "member" + i, i % 100, (long) (i % teams) + 1});
+            if (memberRows.size() == INSERT_BATCH || i == members - 1) {
+                jdbcTemplate.batchUpdate("insert into member (id, username, age, team_id) values (?, ?, ?, ?)", memberRows);
+                memberRows.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object search() {
+        return readOnly.execute(status -> memberJpaRepository.search(searchCondition));
+    }
+
+    @Benchmark
+    public Object searchByBuilder() {
+        return readOnly.execute(status -> memberJpaRepository.searchByBuilder(searchCondition));
+    }
+
+    @Benchmark
+    public Object searchCustom() {
+        return readOnly.execute(status -> memberRepository.search(searchCondition));
+    }
+
+    @Benchmark
+    public Object searchTemplates() {
+        return readOnly.execute(status -> memberSearchTemplates.search(em, searchCondition));
+    }
+
+    @Benchmark
+    public Object searchJdbc() {
+        return readOnly.execute(status -> memberJdbcSearch.search(searchCondition));
+    }
+
+    @Benchmark
+    public Object searchPageSimple() {
+        return readOnly.execute(status -> memberRepository.searchPageSimple(searchCondition, pageable));
+    }
+
+    @Benchmark
+    public Object searchPageComplex() {
+        return readOnly.execute(status -> memberRepository.searchPageComplex(searchCondition, pageable));
+    }
+}
@@ -3,10 +3,12 @@ package study.querydsl;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
 
 @SpringBootApplication
+@EnableScheduling // TeamStatsSummary 대조 작업
 public class QuerydslApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,9 @@
+package study.querydsl.cache;
+
+public record CacheStats(String name, long size, long hits, long misses, long evictions, long invalidations) {
+
+    public double hitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
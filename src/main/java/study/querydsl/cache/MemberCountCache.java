@@ -0,0 +1,100 @@
+package study.querydsl.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.support.TableChangeTracker;
+
+/**
+ * searchPageComplex 의 total count 캐시.
+ * 정규화된 검색조건별로 count 를 보관하고 크기(LRU)와 TTL 로 내보낸다.
+ * member/team 에 쓰기가 감지되면 통째로 비운다.
+ *
+ * 쓰기 트랜잭션 안에서는 캐시를 거치지 않는다. flush 된 미커밋 행이 섞인 count 를 다른 요청에 내주게 되고,
+ * 캐시에서 답하면 쿼리가 안나가서 auto flush 도 안되니 자기 트랜잭션의 persist 가 안보인다.
+ */
+@Component
+public class MemberCountCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<MemberSearchKey, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private long generation; // guarded by this
+
+    public MemberCountCache(@Value("${member.count-cache.max-size:1000}") int maxSize,
+            @Value("${member.count-cache.ttl:30s}") Duration ttl,
+            TableChangeTracker tableChangeTracker) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<MemberSearchKey, Entry> eldest) {
+                if (size() > MemberCountCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        tableChangeTracker.addListener(table -> invalidateAll());
+    }
+
+    public long get(MemberSearchKey key, LongSupplier countQuery) {
+        if (!cacheable()) {
+            return countQuery.getAsLong();
+        }
+        long startGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.expiresAt < 0) {
+                    hits.incrementAndGet();
+                    return entry.count;
+                }
+                entries.remove(key);
+                evictions.incrementAndGet();
+            }
+            startGeneration = generation;
+        }
+        misses.incrementAndGet();
+        long count = countQuery.getAsLong();
+        synchronized (this) {
+            // count 하는 도중 쓰기가 있었다면 이미 낡은 값일 수 있으니 넣지 않는다
+            if (startGeneration == generation) {
+                entries.put(key, new Entry(count, System.nanoTime() + ttlNanos));
+            }
+        }
+        return count;
+    }
+
+    private static boolean cacheable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        if (!entries.isEmpty()) {
+            entries.clear();
+        }
+        invalidations.incrementAndGet();
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats("member-count", entries.size(), hits.get(), misses.get(),
+                evictions.get(), invalidations.get());
+    }
+
+    private record Entry(long count, long expiresAt) {
+    }
+}
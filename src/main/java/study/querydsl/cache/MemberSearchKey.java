@@ -0,0 +1,19 @@
+package study.querydsl.cache;
+
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+
+/**
+ * 캐시 키로 쓰는 정규화된 검색 조건.
+ * usernameEq/teamNameEq 와 동일하게 빈 문자열은 조건 없음(null)으로 본다.
+ */
+public record MemberSearchKey(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+
+    public static MemberSearchKey of(MemberSearchCondition condition) {
+        return new MemberSearchKey(
+                StringUtils.hasText(condition.getUsername()) ? condition.getUsername() : null,
+                StringUtils.hasText(condition.getTeamName()) ? condition.getTeamName() : null,
+                condition.getAgeGoe(),
+                condition.getAgeLoe());
+    }
+}
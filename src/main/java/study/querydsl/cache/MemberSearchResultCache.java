@@ -0,0 +1,165 @@
+package study.querydsl.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.support.TableChangeTracker;
+
+/**
+ * search / searchPageSimple / searchPageComplex 결과 캐시.
+ * 요청이 몇몇 조건에 몰리기 때문에 (정규화된 조건 + 페이지) 단위로 결과를 보관한다.
+ * 크기는 건수가 아니라 추정 메모리(바이트)로 제한하고 LRU 로 내보낸다.
+ * member/team 쓰기가 감지되면 비운다.
+ *
+ * 쓰기 트랜잭션 안에서는 아직 flush 안된 변경이 결과에 반영돼야 하므로 캐시를 거치지 않는다.
+ * MemberTeamDto 는 setter 가 있는 가변 객체라 넣을때와 꺼낼때 행마다 복사한다 (호출한 쪽의 수정이 캐시에 번지지 않게).
+ */
+@Component
+public class MemberSearchResultCache {
+
+    private static final long ENTRY_OVERHEAD = 128;
+    private static final long ROW_OVERHEAD = 120; // MemberTeamDto + Long 2개 + String 2개 헤더
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes; // guarded by this
+    private long generation; // guarded by this
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public MemberSearchResultCache(@Value("${member.result-cache.max-size:64MB}") DataSize maxSize,
+            TableChangeTracker tableChangeTracker) {
+        this.maxBytes = maxSize.toBytes();
+        this.maxEntryBytes = maxBytes / 10; // 조건 없는 전체 조회 같은 큰 결과 하나가 캐시를 다 차지하지 않게
+        tableChangeTracker.addListener(table -> invalidateAll());
+    }
+
+    public List<MemberTeamDto> list(String method, MemberSearchKey condition, Supplier<List<MemberTeamDto>> query) {
+        Key key = new Key(method, condition, 0, 0, null);
+        Entry entry = lookup(key);
+        if (entry != null) {
+            return copy(entry.content());
+        }
+        long startGeneration = generation();
+        List<MemberTeamDto> content = query.get();
+        List<MemberTeamDto> cached = copy(content);
+        store(key, new Entry(cached, -1, weigh(cached)), startGeneration);
+        return content;
+    }
+
+    public Page<MemberTeamDto> page(String method, MemberSearchKey condition, Pageable pageable,
+            Supplier<Page<MemberTeamDto>> query) {
+        Key key = new Key(method, condition, pageable.getOffset(), pageable.getPageSize(), pageable.getSort().toString());
+        Entry entry = lookup(key);
+        if (entry != null) {
+            return new PageImpl<>(copy(entry.content()), pageable, entry.total());
+        }
+        long startGeneration = generation();
+        Page<MemberTeamDto> page = query.get();
+        List<MemberTeamDto> content = copy(page.getContent());
+        store(key, new Entry(content, page.getTotalElements(), weigh(content)), startGeneration);
+        return page;
+    }
+
+    private Entry lookup(Key key) {
+        if (!cacheable()) {
+            return null;
+        }
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return entry;
+    }
+
+    private synchronized void store(Key key, Entry entry, long startGeneration) {
+        // 조회 도중 쓰기가 있었으면 낡은 결과일 수 있어서 넣지 않는다
+        if (!cacheable() || startGeneration != generation || entry.bytes() > maxEntryBytes) {
+            return;
+        }
+        Entry old = entries.put(key, entry);
+        if (old != null) {
+            bytes -= old.bytes();
+        }
+        bytes += entry.bytes();
+        Iterator<Entry> it = entries.values().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= it.next().bytes();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static boolean cacheable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        bytes = 0;
+        invalidations.incrementAndGet();
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats("member-search-result", entries.size(), hits.get(), misses.get(),
+                evictions.get(), invalidations.get());
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    private static List<MemberTeamDto> copy(List<MemberTeamDto> content) {
+        List<MemberTeamDto> copy = new ArrayList<>(content.size());
+        for (MemberTeamDto dto : content) {
+            copy.add(new MemberTeamDto(dto.getMemberId(), dto.getUsername(), dto.getAge(), dto.getTeamId(),
+                    dto.getTeamName()));
+        }
+        return copy;
+    }
+
+    private static long weigh(List<MemberTeamDto> content) {
+        long size = ENTRY_OVERHEAD;
+        for (MemberTeamDto dto : content) {
+            size += ROW_OVERHEAD + chars(dto.getUsername()) + chars(dto.getTeamName());
+        }
+        return size;
+    }
+
+    private static long chars(String value) {
+        return value == null ? 0 : value.length() * 2L;
+    }
+
+    private record Key(String method, MemberSearchKey condition, long offset, int size, String sort) {
+    }
+
+    private record Entry(List<MemberTeamDto> content, long total, long bytes) {
+    }
+}
@@ -0,0 +1,61 @@
+package study.querydsl.config;
+
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import com.zaxxer.hikari.HikariDataSource;
+import study.querydsl.support.ReplicaRoutingDataSource;
+
+/**
+ * member.datasource.replica.url 이 있을때만 읽기/쓰기 분리 (없으면 spring.datasource 하나만 쓰는 기본 설정)
+ */
+@Configuration
+@ConditionalOnProperty("member.datasource.replica.url")
+public class DataSourceConfig {
+
+    @Bean
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    HikariDataSource replicaDataSource(DataSourceProperties properties,
+            @Value("${member.datasource.replica.url}") String url,
+            @Value("${member.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${member.datasource.replica.password:${spring.datasource.password:}}") String password,
+            @Value("${member.datasource.replica.connection-timeout:1s}") Duration connectionTimeout) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setReadOnly(true);
+        // 죽은 replica 때문에 읽기가 오래 막히지 않도록 짧게
+        dataSource.setConnectionTimeout(connectionTimeout.toMillis());
+        dataSource.setInitializationFailTimeout(-1); // replica 가 없어도 기동은 된다
+        return dataSource;
+    }
+
+    @Bean
+    ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+            HikariDataSource replicaDataSource,
+            @Value("${member.datasource.replica.retry-interval:10s}") Duration retryInterval) {
+        return new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, retryInterval);
+    }
+
+    // 실제 커넥션은 첫 SQL 때 얻는다, 그래야 트랜잭션의 readOnly 여부로 라우팅할 수 있다
+    @Bean
+    @Primary
+    DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,16 @@
+package study.querydsl.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ExecutorConfig {
+
+    // 내용/count 쿼리 병렬 실행용, 블로킹 JDBC 호출이라 가상 스레드로 돌린다
+    @Bean(destroyMethod = "close")
+    ExecutorService memberQueryExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
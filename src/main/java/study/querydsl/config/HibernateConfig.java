@@ -0,0 +1,23 @@
+package study.querydsl.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.support.CompositeStatementInspector;
+import study.querydsl.support.SqlCapture;
+import study.querydsl.support.SqlStatementCounter;
+import study.querydsl.support.TableChangeTracker;
+import study.querydsl.support.TableWriteInspector;
+
+@Configuration
+public class HibernateConfig {
+
+    // 벌크 연산까지 포함한 member/team 쓰기 감지 (캐시 무효화용), 실행 SQL 수집 (EXPLAIN 진단용), 요청당 SQL 수
+    @Bean
+    HibernatePropertiesCustomizer statementInspectorCustomizer(TableChangeTracker tableChangeTracker) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                new CompositeStatementInspector(new TableWriteInspector(tableChangeTracker), new SqlCapture(),
+                        new SqlStatementCounter()));
+    }
+}
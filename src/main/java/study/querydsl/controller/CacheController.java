@@ -0,0 +1,30 @@
+package study.querydsl.controller;
+
+import java.util.List;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import lombok.RequiredArgsConstructor;
+import study.querydsl.cache.CacheStats;
+import study.querydsl.cache.MemberCountCache;
+import study.querydsl.cache.MemberSearchResultCache;
+import study.querydsl.repository.MemberSearchTemplates;
+import study.querydsl.repository.MemberSearchTemplates.TemplateStats;
+
+@RestController
+@RequiredArgsConstructor
+public class CacheController {
+
+    private final MemberCountCache memberCountCache;
+    private final MemberSearchResultCache memberSearchResultCache;
+    private final MemberSearchTemplates memberSearchTemplates;
+
+    @GetMapping("/caches")
+    public List<CacheStats> caches() {
+        return List.of(memberCountCache.stats(), memberSearchResultCache.stats());
+    }
+
+    @GetMapping("/caches/search-templates")
+    public TemplateStats searchTemplates() {
+        return memberSearchTemplates.stats();
+    }
+}
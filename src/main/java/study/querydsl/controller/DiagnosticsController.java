@@ -0,0 +1,39 @@
+package study.querydsl.controller;
+
+import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import lombok.RequiredArgsConstructor;
+import study.querydsl.memory.InMemoryMemberSearch;
+import study.querydsl.memory.MemberColumnStats;
+import study.querydsl.support.QueryPlanAdvisor;
+import study.querydsl.support.QueryPlanAdvisor.ShapePlan;
+
+@RestController
+@RequiredArgsConstructor
+public class DiagnosticsController {
+
+    private final QueryPlanAdvisor queryPlanAdvisor;
+    private final ObjectProvider<InMemoryMemberSearch> inMemoryMemberSearch;
+
+    // 검색조건 모양별 실행계획, scanOnly=true 면 테이블 스캔이 남은 모양만
+    @GetMapping("/diagnostics/explain")
+    public List<ShapePlan> explain(@RequestParam(defaultValue = "false") boolean scanOnly) {
+        List<ShapePlan> plans = queryPlanAdvisor.explainAllShapes();
+        return scanOnly ? plans.stream().filter(ShapePlan::tableScan).toList() : plans;
+    }
+
+    // member.search.engine=memory 일때 메모리 엔진 크기 (회원 100만명당 추정 힙 포함)
+    @GetMapping("/diagnostics/memory-engine")
+    public MemberColumnStats memoryEngine() {
+        InMemoryMemberSearch search = inMemoryMemberSearch.getIfAvailable();
+        if (search == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "member.search.engine is not memory");
+        }
+        return search.stats();
+    }
+}
@@ -1,34 +1,134 @@
 package study.querydsl.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import study.querydsl.dto.MemberColumns;
+import study.querydsl.dto.MemberCursorPage;
+import study.querydsl.dto.MemberImportResult;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
-import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.memory.TeamStatsSummary;
+import study.querydsl.repository.MemberJdbcSearch;
 import study.querydsl.repository.MemberRepositoryImpl;
+import study.querydsl.service.MemberExportService;
+import study.querydsl.service.MemberImportService;
+import study.querydsl.service.MemberPageSearchService;
+import study.querydsl.shard.ShardedMemberSearch;
+import study.querydsl.support.MemberSearchETag;
+import study.querydsl.support.QueryTimeout;
 
 @RestController
 @RequiredArgsConstructor
+@QueryTimeout("${member.query-timeout.default:3s}") // 조건 없는 /v1/members 처럼 전체를 읽는 요청이 커넥션을 오래 잡지 않게
 public class MemberController {
 
-    private final MemberJpaRepository memberJpaRepository;
+    private static final int MAX_CURSOR_SIZE = 2000;
+    private static final String NDJSON = "application/x-ndjson";
+
     private final MemberRepositoryImpl memberRepositoryImpl;
+    private final MemberExportService memberExportService;
+    private final MemberImportService memberImportService;
+    private final MemberPageSearchService memberPageSearchService;
+    private final MemberJdbcSearch memberJdbcSearch;
+    private final MemberSearchETag memberSearchETag;
+    private final TeamStatsSummary teamStatsSummary;
+    private final ObjectProvider<ShardedMemberSearch> shardedMemberSearch;
     
+    // 같은 조건이 반복해서 들어오는 요청이라 결과 캐시(MemberSearchResultCache)를 타는 MemberRepositoryImpl 로
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition){
-        return memberJpaRepository.search(condition);
+        return memberRepositoryImpl.search(condition);
+    }
+    // Accept: application/vnd.querydsl.member-columns+json 이면 같은 결과를 열 단위로 (팀명 사전 인코딩)
+    @GetMapping(value = "/v1/members", produces = MemberColumns.MEDIA_TYPE)
+    public MemberColumns searchMemberV1Columns(MemberSearchCondition condition){
+        return memberJdbcSearch.searchColumns(condition);
     }
+    // 폴링용 조건부 GET, member/team 변경이 없으면 DB 조회 없이 304 (MemberSearchETag)
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable){
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable, WebRequest request){
+        if (request.checkNotModified(memberSearchETag.of("v2", condition, pageable))) {
+            return null;
+        }
         return memberRepositoryImpl.searchPageSimple(condition, pageable);
     }
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable){
-        return memberRepositoryImpl.searchPageComplex(condition, pageable);
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable, WebRequest request){
+        if (request.checkNotModified(memberSearchETag.of("v3", condition, pageable))) {
+            return null;
+        }
+        return memberPageSearchService.searchPageComplex(condition, pageable); // 내용/count 병렬
+    }
+    // member.shards.urls 의 샤드들에서 (팀명 조건이면 그 팀 샤드만, 아니면 전체 샤드를 모아서 id 순)
+    @GetMapping("/v3/members/sharded")
+    public Page<MemberTeamDto> searchMemberV3Sharded(MemberSearchCondition condition, Pageable pageable){
+        ShardedMemberSearch search = shardedMemberSearch.getIfAvailable();
+        if (search == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "member.shards.urls is not set");
+        }
+        return search.searchPageComplex(condition, pageable);
+    }
+    @GetMapping("/v3/members/slice")
+    public Slice<MemberTeamDto> searchMemberV3Slice(MemberSearchCondition condition, Pageable pageable){
+        return memberRepositoryImpl.searchSlice(condition, pageable);
+    }
+    @GetMapping("/v4/members")
+    public MemberCursorPage searchMemberV4(MemberSearchCondition condition,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size){
+        if (size < 1 || size > MAX_CURSOR_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and " + MAX_CURSOR_SIZE);
+        }
+        Long afterId;
+        try {
+            afterId = MemberCursorPage.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return memberRepositoryImpl.searchByCursor(condition, afterId, size);
+    }
+    // 건수 제한 없이 전체를 내보낼때는 List 대신 NDJSON 스트리밍
+    @GetMapping(value = "/v1/members/export", produces = NDJSON)
+    @QueryTimeout("${member.query-timeout.export:10m}")
+    public void exportMemberV1(MemberSearchCondition condition, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        memberExportService.exportNdjson(condition, response.getOutputStream());
+    }
+    // username,age,teamName CSV 를 요청 본문 그대로 스트림으로 읽어서 청크 단위로 커밋 (파일 크기와 무관하게 메모리 일정)
+    @PostMapping(value = "/v1/members/import", consumes = {"text/csv", "application/octet-stream"})
+    @QueryTimeout("0") // 청크마다 커밋하는 긴 작업이라 마감 없음
+    public MemberImportResult importMemberV1(InputStream body) throws IOException {
+        return memberImportService.importCsv(body);
+    }
+    // 팀별 회원 수/나이 합계/평균/최소/최대, 매번 GROUP BY 하지 않고 메모리 요약에서 (TeamStatsSummary)
+    @GetMapping("/v1/teams/stats")
+    public List<TeamStatsDto> teamStatsV1(){
+        return teamStatsSummary.stats();
+    }
+    
+    // 쿼리 마감(QueryTimeout) 초과는 서버 오류가 아니라 과부하로, ConcurrencyLimitFilter 도 503 을 보고 상한을 줄인다
+    @ExceptionHandler(QueryTimeoutException.class)
+    public ResponseEntity<Void> queryTimeout(){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
     }
     
 }
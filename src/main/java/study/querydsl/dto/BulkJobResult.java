@@ -0,0 +1,13 @@
+package study.querydsl.dto;
+
+/**
+ * @param resumedFrom 이어서 시작한 member id (처음부터면 0)
+ * @param resumedRows 이전 실행에서 이미 처리했던 건수 (rows 에는 포함하지 않는다)
+ */
+public record BulkJobResult(String jobName, long rows, int chunks, long resumedFrom, long resumedRows,
+        long elapsedMillis) {
+
+    public double rowsPerSecond() {
+        return elapsedMillis == 0 ? rows : rows * 1000.0 / elapsedMillis;
+    }
+}
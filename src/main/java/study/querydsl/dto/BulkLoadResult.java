@@ -0,0 +1,8 @@
+package study.querydsl.dto;
+
+public record BulkLoadResult(long rows, int teams, long elapsedMillis) {
+
+    public double rowsPerSecond() {
+        return elapsedMillis == 0 ? rows : rows * 1000.0 / elapsedMillis;
+    }
+}
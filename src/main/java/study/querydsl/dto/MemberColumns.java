@@ -0,0 +1,138 @@
+package study.querydsl.dto;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * 검색 결과의 열(column) 단위 표현, /v1/members 에 Accept: {@value #MEDIA_TYPE} 으로 요청하면 내려간다.
+ * 행마다 필드명과 팀명을 반복하지 않고, 팀은 사전(teams)에 한번씩만 두고 행에는 사전 위치(team, 팀 없으면 -1)만 둔다.
+ * id/나이는 long[]/int[] 버퍼에 바로 채워서 행마다 DTO, Long 객체를 만들지 않는다.
+ *
+ * <pre>
+ * {"size":2,"memberId":[1,2],"username":["member1","member2"],"age":[10,20],"team":[0,0],
+ *  "teams":{"id":[1],"name":["teamA"]}}
+ * </pre>
+ */
+@JsonSerialize(using = MemberColumns.Serializer.class)
+public class MemberColumns {
+
+    public static final String MEDIA_TYPE = "application/vnd.querydsl.member-columns+json";
+
+    private int size;
+    private long[] memberIds;
+    private String[] usernames;
+    private int[] ages;
+    private int[] teams;
+
+    private final Map<Long, Integer> teamIndex = new HashMap<>();
+    private final List<String> teamNames = new ArrayList<>();
+    private long[] teamIds = new long[8];
+    private long lastTeamId;
+    private int lastTeam = -1;
+
+    public MemberColumns(int capacity) {
+        capacity = Math.max(capacity, 16);
+        this.memberIds = new long[capacity];
+        this.usernames = new String[capacity];
+        this.ages = new int[capacity];
+        this.teams = new int[capacity];
+    }
+
+    // 팀 없는 회원
+    public void add(long memberId, String username, int age) {
+        add(memberId, username, age, -1);
+    }
+
+    public void add(long memberId, String username, int age, long teamId, String teamName) {
+        add(memberId, username, age, team(teamId, teamName));
+    }
+
+    private void add(long memberId, String username, int age, int team) {
+        if (size == memberIds.length) {
+            grow();
+        }
+        memberIds[size] = memberId;
+        usernames[size] = username;
+        ages[size] = age;
+        teams[size] = team;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int teamCount() {
+        return teamNames.size();
+    }
+
+    // 같은 팀이 연달아 나오는 경우가 많아 직전 팀은 맵을 안거친다
+    private int team(long teamId, String teamName) {
+        if (lastTeam >= 0 && lastTeamId == teamId) {
+            return lastTeam;
+        }
+        Integer index = teamIndex.get(teamId);
+        if (index == null) {
+            index = teamNames.size();
+            teamIndex.put(teamId, index);
+            teamNames.add(teamName);
+            if (index == teamIds.length) {
+                teamIds = Arrays.copyOf(teamIds, index * 2);
+            }
+            teamIds[index] = teamId;
+        }
+        lastTeamId = teamId;
+        lastTeam = index;
+        return index;
+    }
+
+    private void grow() {
+        int capacity = memberIds.length * 2;
+        memberIds = Arrays.copyOf(memberIds, capacity);
+        usernames = Arrays.copyOf(usernames, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        teams = Arrays.copyOf(teams, capacity);
+    }
+
+    static class Serializer extends StdSerializer<MemberColumns> {
+
+        Serializer() {
+            super(MemberColumns.class);
+        }
+
+        @Override
+        public void serialize(MemberColumns columns, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            int size = columns.size;
+            gen.writeStartObject();
+            gen.writeNumberField("size", size);
+            gen.writeFieldName("memberId");
+            gen.writeArray(columns.memberIds, 0, size);
+            gen.writeFieldName("username");
+            gen.writeArray(columns.usernames, 0, size);
+            gen.writeFieldName("age");
+            gen.writeArray(columns.ages, 0, size);
+            gen.writeFieldName("team");
+            gen.writeArray(columns.teams, 0, size);
+
+            int teamCount = columns.teamNames.size();
+            gen.writeObjectFieldStart("teams");
+            gen.writeFieldName("id");
+            gen.writeArray(columns.teamIds, 0, teamCount);
+            gen.writeArrayFieldStart("name");
+            for (String name : columns.teamNames) {
+                gen.writeString(name);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.dto;
+
+import java.util.List;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * @param rejected 형식이 잘못돼 건너뛴 행 수
+ * @param rejections 건너뛴 행 중 앞쪽 일부만 (파일이 커도 응답 크기가 일정하게)
+ * @param teamsCreated 파일에만 있던 팀명이라 새로 만든 팀 수
+ */
+public record MemberImportResult(long accepted, long rejected, int teamsCreated, int commits,
+        long elapsedMillis, List<Rejection> rejections) {
+
+    @JsonProperty
+    public double rowsPerSecond() {
+        return elapsedMillis == 0 ? accepted : accepted * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * @param line 1부터, 헤더 포함
+     */
+    public record Rejection(long line, String reason) {
+    }
+}
@@ -0,0 +1,14 @@
+package study.querydsl.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 팀별 회원 나이 통계 (MemberTest.group() / aggregation() 의 팀 단위 버전)
+ */
+public record TeamStatsDto(Long teamId, String teamName, long count, long ageSum, int ageMin, int ageMax) {
+
+    @JsonProperty
+    public double ageAvg() {
+        return count == 0 ? 0 : (double) ageSum / count;
+    }
+}
@@ -0,0 +1,51 @@
+package study.querydsl.entity;
+
+import java.time.LocalDateTime;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * MemberBulkService 작업 진행 위치. 청크를 처리한 트랜잭션 안에서 같이 갱신되므로
+ * 중간에 죽어도 lastId 이후부터 다시 돌리면 된다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class BulkJobCheckpoint {
+
+    @Id
+    private String jobName;
+    private String signature; // 작업 내용(조건 + set 절) 해시, 첫 청크에서 기록
+    private Long lastId; // 처리 완료한 마지막 member id
+    private long processed;
+    private LocalDateTime updatedAt;
+
+    public BulkJobCheckpoint(String jobName) {
+        this.jobName = jobName;
+        this.lastId = 0L;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * 처음이면 기록하고, 이어서 하는 경우 기록된 작업과 다르면 예외 (다른 작업의 lastId 부터 이어서 행을 건너뛰지 않게)
+     */
+    public void bind(String signature) {
+        if (this.signature == null) {
+            this.signature = signature;
+        } else if (!this.signature.equals(signature)) {
+            throw new IllegalStateException("bulk job " + jobName
+                    + " has a checkpoint from a different condition or update, finish it or use another job name");
+        }
+    }
+
+    public void advance(Long lastId, long rows) {
+        this.lastId = lastId;
+        this.processed += rows;
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,310 @@
+package study.querydsl.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import lombok.extern.slf4j.Slf4j;
+import study.querydsl.dto.MemberCursorPage;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.support.MemberChangeHub;
+import study.querydsl.support.MemberChangeListener;
+
+/**
+ * DB 왕복 없이 메모리의 열 배열({@link MemberColumnStore})로 검색하는 MemberRepositoryCustom (member.search.engine=memory).
+ * 기동시 전체를 읽어두고, 커밋된 엔티티 변경은 MemberChangeHub 로 받아 한 행씩 반영한다.
+ * 벌크 DML 은 어떤 행이 바뀌었는지 모르니 전체를 다시 읽고, 그동안은 available() 이 false 라 DB 로 검색한다.
+ * 커밋된 데이터만 보이므로 쓰기 트랜잭션 안의 검색은 MemberRepositoryImpl 이 DB 로 보낸다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "member.search.engine", havingValue = "memory")
+public class InMemoryMemberSearch implements MemberRepositoryCustom, MemberChangeListener {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService executor;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private MemberColumnStore store; // guarded by lock
+    private List<Consumer<MemberColumnStore>> pending; // 적재 중 들어온 변경, guarded by lock
+    private volatile boolean available;
+    private final AtomicBoolean reloadScheduled = new AtomicBoolean();
+
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong rowEvents = new AtomicLong();
+    private volatile long lastLoadMillis;
+
+    public InMemoryMemberSearch(DataSource dataSource, MemberChangeHub memberChangeHub,
+            @Qualifier("memberQueryExecutor") ExecutorService executor) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.executor = executor;
+        memberChangeHub.addListener(this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+    }
+
+    /**
+     * 검색에 쓸 수 있는지, 처음 적재 전이나 벌크 변경 후 다시 적재하는 동안은 false
+     */
+    public boolean available() {
+        return available;
+    }
+
+    /**
+     * DB 에서 전체를 다시 읽어 바꿔 끼운다. 읽는 동안 들어온 행 변경은 새 저장소에 다시 적용한다 (upsert 라 중복 적용돼도 같다).
+     */
+    public synchronized void reload() {
+        lock.writeLock().lock();
+        try {
+            available = false;
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.nanoTime();
+        MemberColumnStore loaded;
+        try {
+            loaded = load();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null; // available 은 false 로 남아 DB 로 검색
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pending.forEach(change -> change.accept(loaded));
+            pending = null;
+            store = loaded;
+            available = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lastLoadMillis = (System.nanoTime() - start) / 1_000_000;
+        loads.incrementAndGet();
+        MemberColumnStats stats = stats();
+        log.info("loaded {} members / {} teams into memory in {} ms, ~{} KB (~{} MB per million members)",
+                stats.members(), stats.teams(), lastLoadMillis, stats.estimatedBytes() / 1024,
+                stats.bytesPerMillionMembers() / (1024 * 1024));
+    }
+
+    // 기본(primary) 커넥션으로 읽는다, replica 지연으로 빠진 행이 생기지 않게
+    private MemberColumnStore load() {
+        Integer count = jdbcTemplate.queryForObject("select count(*) from member", Integer.class);
+        MemberColumnStore loaded = new MemberColumnStore(count == null ? 0 : count + count / 8);
+        jdbcTemplate.query("select id, name from team", (RowCallbackHandler) rs ->
+                loaded.upsertTeam(rs.getLong(1), rs.getString(2)));
+        jdbcTemplate.query("select id, username, age, team_id from member order by id", (RowCallbackHandler) rs -> {
+            long teamId = rs.getLong(4);
+            loaded.upsertMember(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.wasNull() ? null : teamId);
+        });
+        return loaded;
+    }
+
+    public MemberColumnStats stats() {
+        lock.readLock().lock();
+        try {
+            if (store == null) {
+                return new MemberColumnStats(0, 0, 0, 0, 0, lastLoadMillis, loads.get(), rowEvents.get(), available);
+            }
+            long bytes = store.estimatedBytes();
+            long perMillion = store.size() == 0 ? 0 : bytes * 1_000_000L / store.size();
+            return new MemberColumnStats(store.size(), store.teamCount(), store.usernameCount(), bytes, perMillion,
+                    lastLoadMillis, loads.get(), rowEvents.get(), available);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---- 변경 반영 (MemberChangeHub, 커밋 후) ----
+
+    @Override
+    public void memberInserted(MemberRow row) {
+        apply(store -> store.upsertMember(row.id(), row.username(), row.age(), row.teamId()));
+    }
+
+    @Override
+    public void memberUpdated(MemberRow before, MemberRow after) {
+        apply(store -> store.upsertMember(after.id(), after.username(), after.age(), after.teamId()));
+    }
+
+    @Override
+    public void memberDeleted(MemberRow row) {
+        apply(store -> store.deleteMember(row.id()));
+    }
+
+    @Override
+    public void teamSaved(long teamId, String name) {
+        apply(store -> store.upsertTeam(teamId, name));
+    }
+
+    @Override
+    public void teamDeleted(long teamId) {
+        apply(store -> store.deleteTeam(teamId));
+    }
+
+    @Override
+    public void bulkChanged(String table) {
+        scheduleReload();
+    }
+
+    private void apply(Consumer<MemberColumnStore> change) {
+        rowEvents.incrementAndGet();
+        boolean bloated;
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(change);
+            }
+            if (store == null) {
+                return;
+            }
+            change.accept(store);
+            bloated = pending == null && store.dictionaryBloated();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (bloated) {
+            scheduleReload();
+        }
+    }
+
+    // 벌크 변경이 몰려와도 한번만, 커밋한 스레드가 아니라 별도 스레드에서 다시 읽는다
+    private void scheduleReload() {
+        available = false;
+        if (reloadScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                reloadScheduled.set(false);
+                try {
+                    reload();
+                } catch (RuntimeException e) {
+                    log.warn("in-memory member reload failed, searching the database until next reload", e);
+                }
+            });
+        }
+    }
+
+    // ---- 검색 ----
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        lock.readLock().lock();
+        try {
+            List<MemberTeamDto> result = new ArrayList<>();
+            store.scan(store.filter(condition), 0, 0, Integer.MAX_VALUE, false, row -> result.add(store.dto(row)));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            List<MemberTeamDto> content = new ArrayList<>(pageable.getPageSize());
+            long total = store.scan(store.filter(condition), 0, pageable.getOffset(), pageable.getPageSize(), true,
+                    row -> content.add(store.dto(row)));
+            return new PageImpl<>(content, pageable, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 메모리에선 count 를 따로 돌릴 이유가 없어 한번 훑으면서 같이 센다
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return searchPageSimple(condition, pageable);
+    }
+
+    public List<MemberTeamDto> searchPageContent(MemberSearchCondition condition, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            List<MemberTeamDto> content = new ArrayList<>(pageable.getPageSize());
+            store.scan(store.filter(condition), 0, pageable.getOffset(), pageable.getPageSize(), false,
+                    row -> content.add(store.dto(row)));
+            return content;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long searchCount(MemberSearchCondition condition) {
+        lock.readLock().lock();
+        try {
+            return store.scan(store.filter(condition), 0, 0, 0, true, row -> { });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            List<MemberTeamDto> content = new ArrayList<>(pageable.getPageSize() + 1);
+            store.scan(store.filter(condition), 0, pageable.getOffset(), pageable.getPageSize() + 1, false,
+                    row -> content.add(store.dto(row)));
+            boolean hasNext = content.size() > pageable.getPageSize();
+            if (hasNext) {
+                content.remove(content.size() - 1);
+            }
+            return new SliceImpl<>(content, pageable, hasNext);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public MemberCursorPage searchByCursor(MemberSearchCondition condition, Long afterId, int size) {
+        lock.readLock().lock();
+        try {
+            int from = afterId == null ? 0 : store.rowAfter(afterId);
+            List<MemberTeamDto> content = new ArrayList<>(size + 1);
+            store.scan(store.filter(condition), from, 0, size + 1, false, row -> content.add(store.dto(row)));
+            boolean hasNext = content.size() > size;
+            if (hasNext) {
+                content.remove(content.size() - 1);
+            }
+            return new MemberCursorPage(content, size, hasNext);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 이미 메모리에 있으니 fetchSize 는 의미 없다
+    @Override
+    public Stream<MemberTeamDto> searchStream(MemberSearchCondition condition, int fetchSize) {
+        return search(condition).stream();
+    }
+}
@@ -0,0 +1,10 @@
+package study.querydsl.memory;
+
+/**
+ * @param estimatedBytes 열 배열 + 사전 문자열 추정 힙 사용량
+ * @param bytesPerMillionMembers estimatedBytes 를 회원 100만명 기준으로 환산
+ * @param available false 면 (재)적재 중이라 DB 로 검색한다
+ */
+public record MemberColumnStats(int members, int teams, int usernames, long estimatedBytes,
+        long bytesPerMillionMembers, long lastLoadMillis, long loads, long rowEvents, boolean available) {
+}
@@ -0,0 +1,245 @@
+package study.querydsl.memory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * member/team 을 열 배열로 들고 있는 저장소. 행은 member id 오름차순으로 유지한다 (커서 검색, 안정적인 페이지 순서).
+ * username, 팀명은 사전 인코딩(int 코드)이라 검색시 문자열 비교 없이 int 비교만 한다.
+ * 동기화는 InMemoryMemberSearch 의 읽기/쓰기 락이 한다.
+ */
+class MemberColumnStore {
+
+    private static final int NO_TEAM = -1;
+    private static final int NO_NAME = -1;
+
+    // member 열
+    private long[] ids;
+    private int[] ages;
+    private int[] teams; // team 슬롯
+    private int[] usernames; // usernameDictionary 코드
+    private int size;
+    private final StringDictionary usernameDictionary;
+
+    // team 열 (슬롯 단위, 삭제된 팀은 이름만 지운다)
+    private long[] teamIds = new long[16];
+    private int[] teamNames = new int[16]; // teamNameDictionary 코드
+    private int teamSlots;
+    private final Map<Long, Integer> teamSlotById = new HashMap<>(); // 팀은 적다
+    private final StringDictionary teamNameDictionary = new StringDictionary(16);
+
+    MemberColumnStore(int expectedMembers) {
+        int capacity = Math.max(expectedMembers, 16);
+        ids = new long[capacity];
+        ages = new int[capacity];
+        teams = new int[capacity];
+        usernames = new int[capacity];
+        usernameDictionary = new StringDictionary(capacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int teamCount() {
+        return teamSlotById.size();
+    }
+
+    // ---- 변경 ----
+
+    void upsertTeam(long teamId, String name) {
+        int slot = teamSlot(teamId);
+        teamNames[slot] = name == null ? NO_NAME : teamNameDictionary.code(name);
+    }
+
+    void deleteTeam(long teamId) {
+        Integer slot = teamSlotById.get(teamId);
+        if (slot != null) {
+            teamNames[slot] = NO_NAME; // 슬롯은 재사용하지 않는다 (member 가 남아 있을 수 없음, FK)
+        }
+    }
+
+    /**
+     * id 로 넣거나 덮어쓴다 (같은 변경이 두번 와도 결과가 같다)
+     */
+    void upsertMember(long id, String username, int age, Long teamId) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        if (row < 0) {
+            row = -row - 1;
+            if (size == ids.length) {
+                grow();
+            }
+            if (row < size) { // 대부분은 id 가 증가하니 끝에 붙는다
+                System.arraycopy(ids, row, ids, row + 1, size - row);
+                System.arraycopy(ages, row, ages, row + 1, size - row);
+                System.arraycopy(teams, row, teams, row + 1, size - row);
+                System.arraycopy(usernames, row, usernames, row + 1, size - row);
+            }
+            size++;
+            ids[row] = id;
+        }
+        ages[row] = age;
+        teams[row] = teamId == null ? NO_TEAM : teamSlot(teamId);
+        usernames[row] = username == null ? NO_NAME : usernameDictionary.code(username);
+    }
+
+    void deleteMember(long id) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        if (row < 0) {
+            return;
+        }
+        int tail = size - row - 1;
+        System.arraycopy(ids, row + 1, ids, row, tail);
+        System.arraycopy(ages, row + 1, ages, row, tail);
+        System.arraycopy(teams, row + 1, teams, row, tail);
+        System.arraycopy(usernames, row + 1, usernames, row, tail);
+        size--;
+    }
+
+    /**
+     * 수정/삭제로 안쓰이는 username 이 사전에 쌓였는지 (다시 적재할 때가 됐는지)
+     */
+    boolean dictionaryBloated() {
+        return usernameDictionary.size() > 1024 && usernameDictionary.size() > size * 2;
+    }
+
+    private int teamSlot(long teamId) {
+        Integer slot = teamSlotById.get(teamId);
+        if (slot != null) {
+            return slot;
+        }
+        if (teamSlots == teamIds.length) {
+            teamIds = Arrays.copyOf(teamIds, teamSlots * 2);
+            teamNames = Arrays.copyOf(teamNames, teamSlots * 2);
+        }
+        int newSlot = teamSlots++;
+        teamIds[newSlot] = teamId;
+        teamNames[newSlot] = NO_NAME; // 팀 이벤트보다 member 가 먼저 오면 이름은 나중에
+        teamSlotById.put(teamId, newSlot);
+        return newSlot;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        teams = Arrays.copyOf(teams, capacity);
+        usernames = Arrays.copyOf(usernames, capacity);
+    }
+
+    // ---- 조회 ----
+
+    /**
+     * 검색조건을 코드/슬롯 비교로 바꾼 것. 조건에 맞는 행이 있을 수 없으면 empty
+     */
+    final class Filter {
+        private final int username; // -1 이면 조건 없음
+        private final boolean[] teamSlots; // null 이면 조건 없음
+        private final int ageGoe;
+        private final int ageLoe;
+        private final boolean empty;
+
+        private Filter(MemberSearchCondition condition) {
+            boolean none = false;
+            if (StringUtils.hasText(condition.getUsername())) {
+                username = usernameDictionary.find(condition.getUsername());
+                none = username < 0;
+            } else {
+                username = -1;
+            }
+            if (StringUtils.hasText(condition.getTeamName())) {
+                int name = teamNameDictionary.find(condition.getTeamName());
+                teamSlots = new boolean[MemberColumnStore.this.teamSlots];
+                boolean any = false;
+                for (int slot = 0; slot < teamSlots.length && name >= 0; slot++) {
+                    if (teamNames[slot] == name) {
+                        teamSlots[slot] = true;
+                        any = true;
+                    }
+                }
+                none |= !any;
+            } else {
+                teamSlots = null;
+            }
+            ageGoe = condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE;
+            ageLoe = condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE;
+            empty = none || ageGoe > ageLoe;
+        }
+
+        private boolean matches(int row) {
+            if (username >= 0 && usernames[row] != username) {
+                return false;
+            }
+            if (teamSlots != null && (teams[row] == NO_TEAM || !teamSlots[teams[row]])) {
+                return false;
+            }
+            int age = ages[row];
+            return age >= ageGoe && age <= ageLoe;
+        }
+    }
+
+    Filter filter(MemberSearchCondition condition) {
+        return new Filter(condition);
+    }
+
+    /**
+     * fromRow 부터 조건에 맞는 행을 훑어 offset 개를 건너뛰고 limit 개를 collector 에 넘긴다
+     * @param countAll true 면 limit 을 채운 뒤에도 끝까지 세서 전체 건수를 돌려준다
+     * @return countAll 이면 전체 일치 건수, 아니면 넘긴 건수
+     */
+    long scan(Filter filter, int fromRow, long offset, int limit, boolean countAll, IntConsumer collector) {
+        if (filter.empty) {
+            return 0;
+        }
+        long matched = 0;
+        int collected = 0;
+        for (int row = fromRow; row < size; row++) {
+            if (!filter.matches(row)) {
+                continue;
+            }
+            if (matched >= offset && collected < limit) {
+                collector.accept(row);
+                collected++;
+            }
+            matched++;
+            if (!countAll && collected == limit) {
+                return collected;
+            }
+        }
+        return countAll ? matched : collected;
+    }
+
+    /**
+     * @return afterId 보다 큰 첫 행
+     */
+    int rowAfter(long afterId) {
+        int row = Arrays.binarySearch(ids, 0, size, afterId);
+        return row >= 0 ? row + 1 : -row - 1;
+    }
+
+    MemberTeamDto dto(int row) {
+        int slot = teams[row];
+        Long teamId = slot == NO_TEAM ? null : teamIds[slot];
+        String teamName = slot == NO_TEAM || teamNames[slot] == NO_NAME ? null : teamNameDictionary.get(teamNames[slot]);
+        String username = usernames[row] == NO_NAME ? null : usernameDictionary.get(usernames[row]);
+        return new MemberTeamDto(ids[row], username, ages[row], teamId, teamName);
+    }
+
+    /**
+     * 대략적인 힙 사용량 (배열 용량 + 사전 문자열)
+     */
+    long estimatedBytes() {
+        long memberColumns = 4 * 16L + ids.length * (8L + 4 + 4 + 4);
+        long teamColumns = 2 * 16L + teamIds.length * (8L + 4) + teamSlotById.size() * 64L; // HashMap 항목 대략
+        return memberColumns + teamColumns + usernameDictionary.estimatedBytes() + teamNameDictionary.estimatedBytes();
+    }
+
+    int usernameCount() {
+        return usernameDictionary.size();
+    }
+}
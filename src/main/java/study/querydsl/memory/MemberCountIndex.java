@@ -0,0 +1,306 @@
+package study.querydsl.memory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import lombok.extern.slf4j.Slf4j;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.TeamNameLookup;
+import study.querydsl.support.MemberChangeHub;
+import study.querydsl.support.MemberChangeListener;
+import study.querydsl.support.TableChangeTracker;
+
+/**
+ * searchPageComplex count 용 비트맵 인덱스 (member.count-index.enabled).
+ * 팀 id 별, 나이 별 member id 비트맵(RoaringBitmap)을 들고 teamName/ageGoe/ageLoe 조합의 건수를 AND + cardinality 로 바로 구한다.
+ * 나이는 값 하나가 버킷 하나라 범위 끝에서 행을 다시 거를 필요가 없다.
+ * username 이 들어간 조건은 supports() 가 false 라 SQL count 로 간다.
+ *
+ * 커밋된 엔티티 변경은 MemberChangeHub 로 받아 바로 반영하고, 벌크 변경은 다시 만든다 (그동안은 SQL).
+ * member id 가 int 범위를 넘으면 인덱스를 쓰지 않는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "member.count-index.enabled", havingValue = "true")
+public class MemberCountIndex implements MemberChangeListener {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TeamNameLookup teamNameLookup;
+    private final ExecutorService executor;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Bitmaps bitmaps; // guarded by lock
+    private List<Consumer<Bitmaps>> pending; // 다시 만드는 중 들어온 변경, guarded by lock
+    private volatile boolean available;
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final AtomicBoolean overflowWarned = new AtomicBoolean();
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    public MemberCountIndex(DataSource dataSource, TeamNameLookup teamNameLookup, MemberChangeHub memberChangeHub,
+            @Qualifier("memberQueryExecutor") ExecutorService executor) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(1000);
+        this.teamNameLookup = teamNameLookup;
+        this.executor = executor;
+        memberChangeHub.addListener(this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    public boolean supports(MemberSearchCondition condition) {
+        return available && !StringUtils.hasText(condition.getUsername());
+    }
+
+    public long rebuilds() {
+        return rebuilds.get();
+    }
+
+    /**
+     * supports() 가 true 인 조건만
+     */
+    public long count(MemberSearchCondition condition) {
+        List<Long> teamIds = null;
+        if (StringUtils.hasText(condition.getTeamName())) {
+            teamIds = teamNameLookup.findIds(condition.getTeamName()); // DB 조회가 있을 수 있어 락 밖에서
+            if (teamIds.isEmpty()) {
+                return 0;
+            }
+        }
+        lock.readLock().lock();
+        try {
+            RoaringBitmap teams = teamIds != null ? bitmaps.teams(teamIds) : null;
+            RoaringBitmap ages = condition.getAgeGoe() != null || condition.getAgeLoe() != null
+                    ? bitmaps.ages(condition.getAgeGoe(), condition.getAgeLoe()) : null;
+            if (teams == null && ages == null) {
+                return bitmaps.all.getLongCardinality();
+            }
+            if (teams == null || ages == null) {
+                return (teams != null ? teams : ages).getLongCardinality();
+            }
+            return RoaringBitmap.andCardinality(teams, ages);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * DB 에서 다시 만든다. 만드는 동안 들어온 변경은 새 비트맵에 다시 적용한다 (같은 변경을 두번 적용해도 결과가 같다).
+     */
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            available = false;
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Bitmaps built = new Bitmaps();
+        boolean[] overflow = {false};
+        long start = System.nanoTime();
+        try {
+            jdbcTemplate.query("select id, age, team_id from member", (RowCallbackHandler) rs -> {
+                long id = rs.getLong(1);
+                long teamId = rs.getLong(3);
+                Long team = rs.wasNull() ? null : teamId;
+                if (id > Integer.MAX_VALUE) {
+                    overflow[0] = true;
+                } else {
+                    built.add((int) id, rs.getInt(2), team);
+                }
+            });
+        } catch (RuntimeException e) {
+            clearPending();
+            throw e;
+        }
+        if (overflow[0]) {
+            clearPending();
+            log.warn("member id exceeds int range, count index disabled");
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pending.forEach(change -> change.accept(built));
+            pending = null;
+            built.optimize();
+            bitmaps = built;
+            available = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        rebuilds.incrementAndGet();
+        log.info("member count index built: {} members, {} teams, {} ages, {} KB in {} ms",
+                built.all.getLongCardinality(), built.byTeam.size(), built.byAge.size(),
+                built.sizeInBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void clearPending() {
+        lock.writeLock().lock();
+        try {
+            pending = null; // available 은 false 로 남아 SQL count
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---- 변경 반영 (MemberChangeHub, 커밋 후) ----
+
+    @Override
+    public void memberInserted(MemberRow row) {
+        apply(row.id(), bitmaps -> bitmaps.add((int) row.id(), row.age(), row.teamId()));
+    }
+
+    // before 는 그 트랜잭션이 읽었던 상태라 낡았을 수 있다 (@Version 이 없어 같은 행을 동시에 고친 두 트랜잭션이 같은 before 를 들고 온다).
+    // before 버킷에서만 빼면 두 번째 변경이 첫 번째가 넣은 버킷을 못 지워 id 가 두 버킷에 남으니, 어디 있든 빼고 넣는다.
+    @Override
+    public void memberUpdated(MemberRow before, MemberRow after) {
+        apply(after.id(), bitmaps -> {
+            bitmaps.removeEverywhere((int) after.id());
+            bitmaps.add((int) after.id(), after.age(), after.teamId());
+        });
+    }
+
+    @Override
+    public void memberDeleted(MemberRow row) {
+        apply(row.id(), bitmaps -> bitmaps.removeEverywhere((int) row.id())); // 삭제 직전 상태를 모를 수도 있다
+    }
+
+    @Override
+    public void bulkChanged(String table) {
+        if (TableChangeTracker.MEMBER.equals(table)) {
+            scheduleRebuild();
+        }
+    }
+
+    private void apply(long id, Consumer<Bitmaps> change) {
+        if (id > Integer.MAX_VALUE) {
+            overflow(id);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(change);
+            }
+            if (bitmaps != null) {
+                change.accept(bitmaps);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * int 로 못 담는 id 가 들어왔다. rebuild() 가 넘치는 id 를 보고 끄는 것과 같게 되도록 다시 만든다
+     * (쓰는 중이었거나 다시 만드는 중일때만, 이미 꺼져 있으면 다음 벌크 변경때까지 그대로).
+     */
+    private void overflow(long id) {
+        if (overflowWarned.compareAndSet(false, true)) {
+            log.warn("member id {} exceeds int range, count index disabled", id);
+        }
+        boolean rebuilding;
+        lock.readLock().lock();
+        try {
+            rebuilding = pending != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (available || rebuilding) {
+            scheduleRebuild();
+        }
+    }
+
+    private void scheduleRebuild() {
+        available = false;
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                rebuildScheduled.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.warn("member count index rebuild failed, counting with SQL until next rebuild", e);
+                }
+            });
+        }
+    }
+
+    private static final class Bitmaps {
+        private final RoaringBitmap all = new RoaringBitmap();
+        private final Map<Long, RoaringBitmap> byTeam = new HashMap<>();
+        private final NavigableMap<Integer, RoaringBitmap> byAge = new TreeMap<>();
+
+        void add(int id, int age, Long teamId) {
+            all.add(id);
+            byAge.computeIfAbsent(age, key -> new RoaringBitmap()).add(id);
+            if (teamId != null) {
+                byTeam.computeIfAbsent(teamId, key -> new RoaringBitmap()).add(id);
+            }
+        }
+
+        void removeEverywhere(int id) {
+            all.remove(id);
+            byAge.values().forEach(bitmap -> bitmap.remove(id));
+            byTeam.values().forEach(bitmap -> bitmap.remove(id));
+        }
+
+        RoaringBitmap teams(List<Long> teamIds) {
+            List<RoaringBitmap> matched = new ArrayList<>(teamIds.size());
+            for (Long teamId : teamIds) {
+                RoaringBitmap bitmap = byTeam.get(teamId);
+                if (bitmap != null) {
+                    matched.add(bitmap);
+                }
+            }
+            return FastAggregation.or(matched.iterator());
+        }
+
+        RoaringBitmap ages(Integer ageGoe, Integer ageLoe) {
+            int from = ageGoe != null ? ageGoe : Integer.MIN_VALUE;
+            int to = ageLoe != null ? ageLoe : Integer.MAX_VALUE;
+            if (from > to) {
+                return new RoaringBitmap();
+            }
+            return FastAggregation.or(byAge.subMap(from, true, to, true).values().iterator());
+        }
+
+        void optimize() {
+            all.runOptimize();
+            byAge.values().forEach(RoaringBitmap::runOptimize);
+            byTeam.values().forEach(RoaringBitmap::runOptimize);
+        }
+
+        long sizeInBytes() {
+            long bytes = all.getLongSizeInBytes();
+            for (RoaringBitmap bitmap : byAge.values()) {
+                bytes += bitmap.getLongSizeInBytes();
+            }
+            for (RoaringBitmap bitmap : byTeam.values()) {
+                bytes += bitmap.getLongSizeInBytes();
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package study.querydsl.memory;
+
+import java.util.Arrays;
+
+/**
+ * 문자열 -> int 코드 사전. 값은 String[] 에, 찾기는 코드만 담은 오픈 어드레싱 int[] 테이블로.
+ * HashMap 처럼 항목마다 Node/Integer 객체를 만들지 않는다. 항목 삭제는 없고 필요하면 새로 만든다.
+ * 동기화는 호출하는 쪽(MemberColumnStore 의 락) 책임.
+ */
+class StringDictionary {
+
+    private static final int EMPTY = -1;
+
+    private String[] values;
+    private int[] table; // 코드, 비었으면 EMPTY
+    private int size;
+
+    StringDictionary(int expected) {
+        values = new String[Math.max(expected, 16)];
+        table = new int[tableSize(values.length)];
+        Arrays.fill(table, EMPTY);
+    }
+
+    /**
+     * @return 코드, 없으면 -1
+     */
+    int find(String value) {
+        int mask = table.length - 1;
+        for (int i = hash(value) & mask; ; i = (i + 1) & mask) {
+            int code = table[i];
+            if (code == EMPTY) {
+                return -1;
+            }
+            if (values[code].equals(value)) {
+                return code;
+            }
+        }
+    }
+
+    /**
+     * @return 기존 코드, 없으면 추가하고 새 코드
+     */
+    int code(String value) {
+        int mask = table.length - 1;
+        int i = hash(value) & mask;
+        for (; ; i = (i + 1) & mask) {
+            int code = table[i];
+            if (code == EMPTY) {
+                break;
+            }
+            if (values[code].equals(value)) {
+                return code;
+            }
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        int code = size++;
+        values[code] = value;
+        table[i] = code;
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return code;
+    }
+
+    String get(int code) {
+        return values[code];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 대략적인 힙 사용량 (compressed oops, Latin-1 문자열 기준)
+     */
+    long estimatedBytes() {
+        long bytes = 16L + values.length * 4L + 16L + table.length * 4L;
+        for (int i = 0; i < size; i++) {
+            bytes += 24 + align(16 + values[i].length()); // String + byte[]
+        }
+        return bytes;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        Arrays.fill(table, EMPTY);
+        int mask = table.length - 1;
+        for (int code = 0; code < size; code++) {
+            int i = hash(values[code]) & mask;
+            while (table[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            table[i] = code;
+        }
+    }
+
+    private static int hash(String value) {
+        int h = value.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSize(int capacity) {
+        return Integer.highestOneBit(Math.max(capacity, 8) * 2 - 1) << 1;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
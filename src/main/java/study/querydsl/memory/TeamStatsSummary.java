@@ -0,0 +1,345 @@
+package study.querydsl.memory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import lombok.extern.slf4j.Slf4j;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.support.MemberChangeHub;
+import study.querydsl.support.MemberChangeListener;
+
+/**
+ * 팀별 회원 나이 통계 (/v1/teams/stats) 를 GROUP BY 없이 메모리에서.
+ * 팀마다 나이 히스토그램(나이 -> 회원 수)을 들고 있어서 삭제/팀 변경이 있어도 min/max 를 다시 구할 수 있다.
+ *
+ * 커밋된 엔티티 변경은 MemberChangeHub 로 받아 바로 반영하고, 벌크 변경이나 변경 전 상태를 모르는 변경은 다시 만든다 (그동안은 GROUP BY).
+ * 더하고 빼는 변경이라 두번 적용하면 안되서, 다시 만드는 중에 변경이 들어오면 만든 결과를 버리고 다시 읽는다.
+ * reconcile() 이 주기적으로 실제 GROUP BY 와 맞춰보고 다르면 다시 만든다.
+ */
+@Slf4j
+@Component
+public class TeamStatsSummary implements MemberChangeListener {
+
+    private static final int MAX_REBUILD_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MemberJpaRepository memberJpaRepository;
+    private final ExecutorService executor;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Summary summary; // guarded by lock
+    private boolean rebuilding; // guarded by lock
+    private long missed; // 다시 만드는 중 들어온 변경 수, guarded by lock
+    private long version; // 반영한 변경 수, guarded by lock
+    private volatile boolean available;
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong mismatches = new AtomicLong();
+
+    public TeamStatsSummary(DataSource dataSource, MemberJpaRepository memberJpaRepository,
+            MemberChangeHub memberChangeHub, @Qualifier("memberQueryExecutor") ExecutorService executor) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(1000);
+        this.memberJpaRepository = memberJpaRepository;
+        this.executor = executor;
+        memberChangeHub.addListener(this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * 팀 id 순, 회원이 없는 팀은 빠진다 (MemberJpaRepository.teamStats() 와 같은 결과)
+     */
+    public List<TeamStatsDto> stats() {
+        if (available) {
+            lock.readLock().lock();
+            try {
+                if (available) {
+                    return summary.snapshot();
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        return memberJpaRepository.teamStats();
+    }
+
+    public boolean available() {
+        return available;
+    }
+
+    public long rebuilds() {
+        return rebuilds.get();
+    }
+
+    public long mismatches() {
+        return mismatches.get();
+    }
+
+    /**
+     * 실제 GROUP BY 와 비교해서 다르면 다시 만든다.
+     * 조회하는 동안 반영된 변경이 있으면 어느 쪽이 맞는지 알 수 없으니 이번엔 건너뛴다.
+     * 커밋됐지만 아직 통지가 안 온 변경 때문에 다르게 보일 수도 있는데, 그 경우 다시 만드는 비용만 든다.
+     *
+     * @return 다른 팀 수, 건너뛰면 -1
+     */
+    @Scheduled(fixedDelayString = "${member.team-stats.reconcile-interval:5m}",
+            initialDelayString = "${member.team-stats.reconcile-interval:5m}")
+    public int reconcile() {
+        long startVersion = currentVersion();
+        if (startVersion < 0) {
+            scheduleRebuild(); // 지난번에 못 만들었으면 다시 시도
+            return -1;
+        }
+        List<TeamStatsDto> expected = memberJpaRepository.teamStats();
+        List<TeamStatsDto> actual;
+        lock.readLock().lock();
+        try {
+            if (!available || version != startVersion) {
+                return -1;
+            }
+            actual = summary.snapshot();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int mismatched = diff(expected, actual);
+        if (mismatched > 0) {
+            mismatches.addAndGet(mismatched);
+            log.warn("team stats summary differs from GROUP BY for {} teams, rebuilding", mismatched);
+            scheduleRebuild();
+        }
+        return mismatched;
+    }
+
+    private long currentVersion() {
+        lock.readLock().lock();
+        try {
+            return available ? version : -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int diff(List<TeamStatsDto> expected, List<TeamStatsDto> actual) {
+        Map<Long, TeamStatsDto> byTeam = new HashMap<>();
+        for (TeamStatsDto stats : actual) {
+            byTeam.put(stats.teamId(), stats);
+        }
+        int mismatched = 0;
+        for (TeamStatsDto stats : expected) {
+            TeamStatsDto other = byTeam.remove(stats.teamId());
+            if (!stats.equals(other)) {
+                log.debug("team stats mismatch: expected {}, summary {}", stats, other);
+                mismatched++;
+            }
+        }
+        return mismatched + byTeam.size(); // GROUP BY 에 없는 팀
+    }
+
+    /**
+     * DB 에서 다시 만든다. 읽는 동안 변경이 들어오면 그 변경이 결과에 들어갔는지 알 수 없으니 다시 읽는다.
+     * 계속 변경이 들어와 못 만들면 다음 reconcile() 까지 GROUP BY 로 답한다.
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        for (int attempt = 1; attempt <= MAX_REBUILD_ATTEMPTS; attempt++) {
+            lock.writeLock().lock();
+            try {
+                available = false;
+                rebuilding = true;
+                missed = 0;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Summary built;
+            try {
+                built = load();
+            } catch (RuntimeException e) {
+                finishRebuild(null);
+                throw e;
+            }
+            if (finishRebuild(built)) {
+                rebuilds.incrementAndGet();
+                log.info("team stats summary built: {} teams in {} ms (attempt {})",
+                        built.teams.size(), (System.nanoTime() - start) / 1_000_000, attempt);
+                return;
+            }
+        }
+        finishRebuild(null);
+        log.warn("team stats summary kept changing during rebuild, using GROUP BY until next reconcile");
+    }
+
+    private Summary load() {
+        Summary built = new Summary();
+        jdbcTemplate.query("select id, name from team",
+                (RowCallbackHandler) rs -> built.teamNames.put(rs.getLong(1), rs.getString(2)));
+        // 회원 단위가 아니라 (팀, 나이) 단위로 받아서 히스토그램을 바로 채운다
+        jdbcTemplate.query("select team_id, age, count(*) from member where team_id is not null group by team_id, age",
+                (RowCallbackHandler) rs -> built.team(rs.getLong(1)).add(rs.getInt(2), rs.getLong(3)));
+        return built;
+    }
+
+    /**
+     * @param built null 이면 포기 (available 은 false 로 남아 GROUP BY)
+     * @return 읽는 동안 변경이 없어서 built 를 쓰게 됐으면 true
+     */
+    private boolean finishRebuild(Summary built) {
+        lock.writeLock().lock();
+        try {
+            if (built == null) {
+                rebuilding = false;
+                return false;
+            }
+            if (missed > 0) {
+                return false;
+            }
+            summary = built;
+            version++;
+            rebuilding = false;
+            available = true;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---- 변경 반영 (MemberChangeHub, 커밋 후) ----
+
+    @Override
+    public void memberInserted(MemberRow row) {
+        if (row.teamId() != null) {
+            apply(summary -> summary.team(row.teamId()).add(row.age(), 1));
+        }
+    }
+
+    @Override
+    public void memberUpdated(MemberRow before, MemberRow after) {
+        if (before == null) {
+            scheduleRebuild(); // 어느 팀/나이에서 빼야 할지 모른다
+            return;
+        }
+        if (Objects.equals(before.teamId(), after.teamId()) && before.age() == after.age()) {
+            return; // 이름만 바뀜
+        }
+        apply(summary -> {
+            if (before.teamId() != null) {
+                summary.team(before.teamId()).add(before.age(), -1);
+            }
+            if (after.teamId() != null) {
+                summary.team(after.teamId()).add(after.age(), 1);
+            }
+        });
+    }
+
+    @Override
+    public void memberDeleted(MemberRow row) {
+        if (row.username() == null) {
+            scheduleRebuild(); // 삭제 직전 상태를 모른다 (MemberChangeHub)
+        } else if (row.teamId() != null) {
+            apply(summary -> summary.team(row.teamId()).add(row.age(), -1));
+        }
+    }
+
+    @Override
+    public void teamSaved(long teamId, String name) {
+        apply(summary -> summary.teamNames.put(teamId, name));
+    }
+
+    @Override
+    public void teamDeleted(long teamId) {
+        apply(summary -> {
+            summary.teamNames.remove(teamId);
+            summary.teams.remove(teamId);
+        });
+    }
+
+    @Override
+    public void bulkChanged(String table) {
+        scheduleRebuild(); // member 벌크는 물론, team 벌크도 이름이 바뀌었을 수 있다
+    }
+
+    private void apply(Consumer<Summary> change) {
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                missed++;
+            } else if (summary != null) {
+                change.accept(summary);
+            }
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void scheduleRebuild() {
+        available = false;
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                rebuildScheduled.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.warn("team stats summary rebuild failed, using GROUP BY until next rebuild", e);
+                }
+            });
+        }
+    }
+
+    private static final class Summary {
+        private final Map<Long, String> teamNames = new HashMap<>();
+        private final Map<Long, TeamAges> teams = new HashMap<>();
+
+        TeamAges team(long teamId) {
+            return teams.computeIfAbsent(teamId, key -> new TeamAges());
+        }
+
+        List<TeamStatsDto> snapshot() {
+            List<TeamStatsDto> result = new ArrayList<>(teams.size());
+            new TreeMap<>(teams).forEach((teamId, ages) -> {
+                if (ages.count > 0) {
+                    result.add(new TeamStatsDto(teamId, teamNames.get(teamId), ages.count, ages.sum,
+                            ages.histogram.firstKey(), ages.histogram.lastKey()));
+                }
+            });
+            return result;
+        }
+    }
+
+    private static final class TeamAges {
+        private final TreeMap<Integer, Long> histogram = new TreeMap<>(); // 나이 -> 회원 수
+        private long count;
+        private long sum;
+
+        void add(int age, long members) {
+            long remaining = histogram.merge(age, members, Long::sum);
+            if (remaining <= 0) {
+                histogram.remove(age);
+            }
+            count += members;
+            sum += (long) age * members;
+        }
+    }
+}
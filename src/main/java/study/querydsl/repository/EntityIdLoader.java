@@ -0,0 +1,101 @@
+package study.querydsl.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import study.querydsl.support.DeadlineJPAQueryFactory;
+
+/**
+ * id 목록으로 엔티티 여러개를 한번에 읽는다 (findAllByIds).
+ * 영속성 컨텍스트에 이미 있는 엔티티는 쿼리 없이 그대로 쓰고, 나머지만 in (...) 으로 읽는다.
+ * in 목록은 member.in-list.max-size 단위로 나누고 크기를 2의 거듭제곱으로 채워서 (마지막 id 반복)
+ * 목록 길이마다 SQL 이 달라져 Hibernate/H2 쿼리 플랜 캐시가 차는 걸 막는다.
+ * 결과는 요청한 id 순서, 없는 id 는 빠지고 중복 id 는 한번만.
+ */
+@Component
+public class EntityIdLoader {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final int maxInListSize;
+
+    public EntityIdLoader(EntityManager em, @Value("${member.in-list.max-size:512}") int maxInListSize) {
+        if (maxInListSize < 1) {
+            throw new IllegalArgumentException("member.in-list.max-size must be positive: " + maxInListSize);
+        }
+        this.em = em;
+        this.queryFactory = new DeadlineJPAQueryFactory(em); // 요청별 쿼리 마감을 타임아웃 힌트로 (QueryDeadline)
+        this.maxInListSize = Integer.highestOneBit(maxInListSize); // 채운 크기가 상한을 넘지 않게
+    }
+
+    public <T> List<T> findAll(EntityPath<T> entity, NumberPath<Long> id, Collection<Long> ids) {
+        LinkedHashSet<Long> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+        if (requested.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, T> found = new HashMap<>(requested.size() * 2);
+        List<Long> missing = new ArrayList<>(requested.size());
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        PersistenceContext context = session.getPersistenceContextInternal();
+        EntityPersister persister = session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(entity.getType());
+        for (Long requestedId : requested) {
+            Object managed = context.getEntity(new EntityKey(requestedId, persister));
+            if (managed == null) {
+                missing.add(requestedId);
+                continue;
+            }
+            EntityEntry entry = context.getEntry(managed);
+            if (entry == null || (entry.getStatus() != Status.DELETED && entry.getStatus() != Status.GONE)) {
+                found.put(requestedId, entity.getType().cast(managed)); // 삭제된 엔티티는 없는 것으로
+            }
+        }
+
+        for (int from = 0; from < missing.size(); from += maxInListSize) {
+            List<Long> chunk = missing.subList(from, Math.min(from + maxInListSize, missing.size()));
+            for (T loaded : queryFactory.selectFrom(entity).where(id.in(padded(chunk))).fetch()) {
+                found.put((Long) persister.getIdentifier(loaded, session), loaded);
+            }
+        }
+
+        List<T> result = new ArrayList<>(found.size());
+        for (Long requestedId : requested) {
+            T loaded = found.get(requestedId);
+            if (loaded != null) {
+                result.add(loaded);
+            }
+        }
+        return result;
+    }
+
+    static List<Long> padded(List<Long> ids) {
+        int size = Integer.highestOneBit(ids.size());
+        if (size == ids.size()) {
+            return ids;
+        }
+        List<Long> padded = new ArrayList<>(size << 1);
+        padded.addAll(ids);
+        Long last = ids.get(ids.size() - 1);
+        while (padded.size() < size << 1) {
+            padded.add(last);
+        }
+        return padded;
+    }
+}
@@ -0,0 +1,136 @@
+package study.querydsl.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.MemberColumns;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.support.DeadlineJdbcTemplate;
+
+/**
+ * search() 의 JDBC 버전 (member.search.engine=jdbc).
+ * MemberTeamDto 는 평평한 읽기전용 프로젝션이라 JPQL -> HQL 파싱 -> SQL 변환, 결과 변환을 거칠 필요가 없다.
+ * MemberSearchTemplates 와 같은 16가지 모양별로 SQL 을 미리 만들어 두고 ResultSet 을 바로 MemberTeamDto 로 옮긴다.
+ * 조건도 같다: teamName 은 TeamNameLookup 으로 team_id in (...).
+ */
+@Component
+public class MemberJdbcSearch {
+
+    private static final String SELECT = "select m.id, m.username, m.age, t.id as team_id, t.name as team_name"
+            + " from member m left join team t on t.id = m.team_id";
+
+    private static final RowMapper<MemberTeamDto> ROW_MAPPER = (rs, rowNum) -> new MemberTeamDto(
+            rs.getLong(1),
+            rs.getString(2),
+            rs.getInt(3),
+            rs.getObject(4, Long.class),
+            rs.getString(5));
+
+    private final String[] sqls = new String[MemberSearchTemplates.SHAPES];
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManager em;
+    private final TeamNameLookup teamNameLookup;
+
+    public MemberJdbcSearch(DataSource dataSource, EntityManager em, TeamNameLookup teamNameLookup) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(new DeadlineJdbcTemplate(dataSource)); // 요청별 쿼리 마감 (QueryDeadline)
+        this.em = em;
+        this.teamNameLookup = teamNameLookup;
+        for (int shape = 0; shape < sqls.length; shape++) {
+            sqls[shape] = sql(shape);
+        }
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        int shape = MemberSearchTemplates.shape(condition);
+        List<Long> teamIds = teamIds(shape, condition);
+        if (teamIds != null && teamIds.isEmpty()) {
+            return new ArrayList<>(); // 없는 팀
+        }
+        flushIfWriting();
+        return jdbcTemplate.query(sqls[shape], params(shape, condition, teamIds), ROW_MAPPER);
+    }
+
+    /**
+     * search() 와 같은 결과를 열 단위 버퍼로 바로 채운다 (행마다 MemberTeamDto 를 만들지 않음)
+     */
+    @Transactional(readOnly = true)
+    public MemberColumns searchColumns(MemberSearchCondition condition) {
+        int shape = MemberSearchTemplates.shape(condition);
+        List<Long> teamIds = teamIds(shape, condition);
+        MemberColumns columns = new MemberColumns(64);
+        if (teamIds != null && teamIds.isEmpty()) {
+            return columns;
+        }
+        flushIfWriting();
+        jdbcTemplate.query(sqls[shape], params(shape, condition, teamIds), (RowCallbackHandler) rs -> {
+            long teamId = rs.getLong(4);
+            if (rs.wasNull()) {
+                columns.add(rs.getLong(1), rs.getString(2), rs.getInt(3));
+            } else {
+                columns.add(rs.getLong(1), rs.getString(2), rs.getInt(3), teamId, rs.getString(5));
+            }
+        });
+        return columns;
+    }
+
+    private List<Long> teamIds(int shape, MemberSearchCondition condition) {
+        return (shape & MemberSearchTemplates.TEAM_NAME) != 0 ? teamNameLookup.findIds(condition.getTeamName()) : null;
+    }
+
+    // 영속성컨텍스트를 거치지 않으니 쓰기 트랜잭션 안이면 JPA auto flush 대신 직접 내보낸다
+    private void flushIfWriting() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            em.flush();
+        }
+    }
+
+    private static Map<String, Object> params(int shape, MemberSearchCondition condition, List<Long> teamIds) {
+        Map<String, Object> params = new HashMap<>(8);
+        if ((shape & MemberSearchTemplates.USERNAME) != 0) {
+            params.put("username", condition.getUsername());
+        }
+        if (teamIds != null) {
+            params.put("teamIds", teamIds);
+        }
+        if ((shape & MemberSearchTemplates.AGE_GOE) != 0) {
+            params.put("ageGoe", condition.getAgeGoe());
+        }
+        if ((shape & MemberSearchTemplates.AGE_LOE) != 0) {
+            params.put("ageLoe", condition.getAgeLoe());
+        }
+        return params;
+    }
+
+    String sql(MemberSearchCondition condition) {
+        return sqls[MemberSearchTemplates.shape(condition)];
+    }
+
+    private static String sql(int shape) {
+        List<String> where = new ArrayList<>(4);
+        if ((shape & MemberSearchTemplates.USERNAME) != 0) {
+            where.add("m.username = :username");
+        }
+        if ((shape & MemberSearchTemplates.TEAM_NAME) != 0) {
+            where.add("m.team_id in (:teamIds)");
+        }
+        if ((shape & MemberSearchTemplates.AGE_GOE) != 0) {
+            where.add("m.age >= :ageGoe");
+        }
+        if ((shape & MemberSearchTemplates.AGE_LOE) != 0) {
+            where.add("m.age <= :ageLoe");
+        }
+        return where.isEmpty() ? SELECT : SELECT + " where " + String.join(" and ", where);
+    }
+}
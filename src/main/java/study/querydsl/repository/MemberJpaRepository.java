@@ -1,10 +1,14 @@
 package study.querydsl.repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
@@ -12,19 +16,26 @@ import jakarta.persistence.EntityManager;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.TeamStatsDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
+import study.querydsl.support.DeadlineJPAQueryFactory;
 
 @Repository
 public class MemberJpaRepository {
     
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final TeamNameLookup teamNameLookup;
+    private final EntityIdLoader entityIdLoader;
     
-    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory) {
+    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory, TeamNameLookup teamNameLookup,
+            EntityIdLoader entityIdLoader) {
         this.em = em;
-        this.queryFactory = new JPAQueryFactory(em);
+        this.queryFactory = new DeadlineJPAQueryFactory(em); // 요청별 쿼리 마감을 타임아웃 힌트로 (QueryDeadline)
+        this.teamNameLookup = teamNameLookup;
+        this.entityIdLoader = entityIdLoader;
     }
     
     public void save(Member member) {
@@ -36,10 +47,16 @@ public class MemberJpaRepository {
         return Optional.ofNullable(findMember);
     }
     
+    // findById 를 반복하지 말고 한번에, 요청한 id 순서로 (EntityIdLoader)
+    public List<Member> findAllByIds(Collection<Long> ids){
+        return entityIdLoader.findAll(QMember.member, QMember.member.id, ids);
+    }
+    
     public List<Member> findAll(){
         return em.createQuery("select m from Member m", Member.class).getResultList();
     }
     // Querydsl 100% 자바코드로!
+    @Transactional(readOnly = true)
     public List<Member> findAll_querydsl(){
         return queryFactory
                 .selectFrom(QMember.member)
@@ -87,6 +104,7 @@ public class MemberJpaRepository {
                 .fetch();
     }
     // where
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(MemberSearchCondition condition){
 
         return queryFactory
@@ -105,6 +123,31 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    // 팀별 회원 수/나이 합계/최소/최대, 팀이 없는 회원은 빠진다 (TeamStatsSummary 대조, 적재 중 대신)
+    public List<TeamStatsDto> teamStats(){
+        List<Tuple> rows = queryFactory
+                .select(QTeam.team.id,
+                        QTeam.team.name,
+                        QMember.member.count(),
+                        QMember.member.age.sum(),
+                        QMember.member.age.min(),
+                        QMember.member.age.max())
+                .from(QMember.member)
+                .join(QMember.member.team, QTeam.team)
+                .groupBy(QTeam.team.id, QTeam.team.name)
+                .orderBy(QTeam.team.id.asc())
+                .fetch();
+        List<TeamStatsDto> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            result.add(new TeamStatsDto(row.get(0, Long.class), row.get(1, String.class),
+                    row.get(2, Number.class).longValue(),
+                    row.get(3, Number.class).longValue(), // Hibernate 는 int 합계를 Long 으로 준다
+                    row.get(4, Number.class).intValue(),
+                    row.get(5, Number.class).intValue()));
+        }
+        return result;
+    }
+
     private BooleanExpression ageLoe(Integer ageLoe) {
         return ageLoe != null ? QMember.member.age.loe(ageLoe) : null;
     }
@@ -113,8 +156,9 @@ public class MemberJpaRepository {
         return ageGoe != null ? QMember.member.age.goe(ageGoe) : null;
     }
 
+    // 팀명 -> 팀 id 로 바꿔서 member.team_id 로 바로 거른다
     private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? QTeam.team.name.eq(teamName) : null;
+        return StringUtils.hasText(teamName) ? QMember.member.team.id.in(teamNameLookup.findIds(teamName)) : null;
     }
 
     private BooleanExpression usernameEq(String username) {
@@ -1,48 +1,95 @@
 package study.querydsl.repository;
 
 import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 import com.querydsl.core.QueryResults;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import study.querydsl.cache.MemberCountCache;
+import study.querydsl.cache.MemberSearchKey;
+import study.querydsl.cache.MemberSearchResultCache;
+import study.querydsl.dto.MemberCursorPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
+import study.querydsl.memory.InMemoryMemberSearch;
+import study.querydsl.memory.MemberCountIndex;
+import study.querydsl.support.DeadlineJPAQueryFactory;
 
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberCountCache countCache;
+    private final MemberSearchTemplates searchTemplates;
+    private final TeamNameLookup teamNameLookup;
+    private final MemberSearchResultCache resultCache;
+    private final MemberJdbcSearch jdbcSearch;
+    private final boolean jdbcEngine;
+    private final InMemoryMemberSearch memorySearch;
+    private final MemberCountIndex countIndex;
     
-    public MemberRepositoryImpl(EntityManager em) {
-        this.queryFactory = new JPAQueryFactory(em);
+    public MemberRepositoryImpl(EntityManager em, MemberCountCache countCache, MemberSearchTemplates searchTemplates,
+            TeamNameLookup teamNameLookup, MemberSearchResultCache resultCache, MemberJdbcSearch jdbcSearch,
+            ObjectProvider<InMemoryMemberSearch> memorySearch, ObjectProvider<MemberCountIndex> countIndex,
+            @Value("${member.search.engine:jpa}") String engine) {
+        if (!"jpa".equals(engine) && !"jdbc".equals(engine) && !"memory".equals(engine)) {
+            throw new IllegalArgumentException("member.search.engine must be jpa, jdbc or memory: " + engine);
+        }
+        this.em = em;
+        this.queryFactory = new DeadlineJPAQueryFactory(em); // 요청별 쿼리 마감을 타임아웃 힌트로 (QueryDeadline)
+        this.countCache = countCache;
+        this.searchTemplates = searchTemplates;
+        this.teamNameLookup = teamNameLookup;
+        this.resultCache = resultCache;
+        this.jdbcSearch = jdbcSearch;
+        this.jdbcEngine = "jdbc".equals(engine);
+        this.memorySearch = memorySearch.getIfAvailable();
+        this.countIndex = countIndex.getIfAvailable();
     }
     
+    // member.search.engine=memory 면 메모리 엔진, 단 커밋된 데이터만 보니 쓰기 트랜잭션 안이거나 (재)적재 중이면 DB 로
+    private InMemoryMemberSearch memory() {
+        if (memorySearch == null || !memorySearch.available() || inWriteTransaction()) {
+            return null;
+        }
+        return memorySearch;
+    }
+    
+    private static boolean inWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+    
+    // 조건 모양별로 미리 직렬화해둔 JPQL 에 파라미터만 바인딩 (MemberSearchTemplates)
+    // 자주 들어오는 조건은 결과 자체를 캐시 (MemberSearchResultCache)
+    // member.search.engine=jdbc 면 Hibernate 를 건너뛰고 SQL 로 바로 (MemberJdbcSearch)
     @Override
+    @Transactional(readOnly = true) // replica 로 (DataSourceConfig)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        QMember.member.id.as("memberId"),
-                        QMember.member.username,
-                        QMember.member.age,
-                        QTeam.team.id.as("teamId"),
-                        QTeam.team.name.as("teamName")))
-                .from(QMember.member)
-                .leftJoin(QMember.member.team, QTeam.team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
-                .fetch();
+        InMemoryMemberSearch memory = memory();
+        if (memory != null) {
+            return memory.search(condition);
+        }
+        return resultCache.list("search", MemberSearchKey.of(condition),
+                () -> jdbcEngine ? jdbcSearch.search(condition) : searchTemplates.search(em, condition));
     }
 
     private BooleanExpression ageLoe(Integer ageLoe) {
@@ -53,16 +100,31 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
         return ageGoe != null ? QMember.member.age.goe(ageGoe) : null;
     }
 
+    // team 조인 없이 팀 id 로 바로 건다 (팀명 -> id 는 TeamNameLookup), count 쿼리에 조인이 필요 없어진다
     private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? QTeam.team.name.eq(teamName) : null;
+        return StringUtils.hasText(teamName) ? QMember.member.team.id.in(teamNameLookup.findIds(teamName)) : null;
     }
 
     private BooleanExpression usernameEq(String username) {
         return StringUtils.hasText(username) ? QMember.member.username.eq(username) : null;
     }
 
+    private BooleanExpression idGt(Long afterId) {
+        return afterId != null ? QMember.member.id.gt(afterId) : null;
+    }
+
     @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        InMemoryMemberSearch memory = memory();
+        if (memory != null) {
+            return memory.searchPageSimple(condition, pageable);
+        }
+        return resultCache.page("searchPageSimple", MemberSearchKey.of(condition), pageable,
+                () -> fetchPageSimple(condition, pageable));
+    }
+
+    private Page<MemberTeamDto> fetchPageSimple(MemberSearchCondition condition, Pageable pageable) {
         QueryResults<MemberTeamDto> results = queryFactory
                 .select(new QMemberTeamDto(
                         QMember.member.id.as("memberId"),
@@ -86,8 +148,31 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
+        InMemoryMemberSearch memory = memory();
+        if (memory != null) {
+            return memory.searchPageComplex(condition, pageable);
+        }
+        return resultCache.page("searchPageComplex", MemberSearchKey.of(condition), pageable,
+                () -> fetchPageComplex(condition, pageable));
+    }
+
+    private Page<MemberTeamDto> fetchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = searchPageContent(condition, pageable);
+//        return new PageImpl<>(content, pageable, total);
+        return PageableExecutionUtils.getPage(content, pageable, () -> searchCount(condition));
+//        return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchCount());
+    }
+
+    // searchPageComplex 의 내용 쿼리, MemberPageSearchService 가 count 와 병렬로 돌릴때 따로 부른다
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> searchPageContent(MemberSearchCondition condition, Pageable pageable) {
+        InMemoryMemberSearch memory = memory();
+        if (memory != null) {
+            return memory.searchPageContent(condition, pageable);
+        }
+        return queryFactory
                 .select(new QMemberTeamDto(
                         QMember.member.id.as("memberId"),
                         QMember.member.username,
@@ -103,6 +188,19 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
+    }
+
+    // searchPageComplex 의 count 쿼리
+    @Transactional(readOnly = true)
+    public long searchCount(MemberSearchCondition condition) {
+        InMemoryMemberSearch memory = memory();
+        if (memory != null) {
+            return memory.searchCount(condition);
+        }
+        // teamName/나이 조건만 있으면 비트맵 인덱스로 (MemberCountIndex), 커밋된 데이터만 보니 쓰기 트랜잭션 안은 SQL
+        if (countIndex != null && countIndex.supports(condition) && !inWriteTransaction()) {
+            return countIndex.count(condition);
+        }
         // count 쿼리가 쉬울 경우 최적화 가능한 점(ex: join 이 필요없어지는 case)
 //        long total = queryFactory
         JPAQuery<Member> countQuery = queryFactory
@@ -115,12 +213,97 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                  );
+        // count 는 조건별로 캐시, member/team 쓰기(벌크 포함)가 있으면 비워진다
+        return countCache.get(MemberSearchKey.of(condition), countQuery::fetchCount);
+    }
 
-//        return new PageImpl<>(content, pageable, total);
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
-//        return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchCount());
+    // 전체 건수가 필요없는 무한스크롤용, count 쿼리 없이 한건 더 읽어서 다음 페이지 여부만 판단
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        InMemoryMemberSearch memory = memory();
+        if (memory != null) {
+            return memory.searchSlice(condition, pageable);
+        }
+        List<MemberTeamDto> content = queryFactory
+                .select(new QMemberTeamDto(
+                        QMember.member.id.as("memberId"),
+                        QMember.member.username,
+                        QMember.member.age,
+                        QTeam.team.id.as("teamId"),
+                        QTeam.team.name.as("teamName")))
+                .from(QMember.member)
+                .leftJoin(QMember.member.team, QTeam.team)
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1)
+                .fetch();
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
     }
 
+    // offset 대신 id 기준 seek, 몇번째 페이지든 pk 인덱스에서 바로 시작한다
+    @Override
+    public MemberCursorPage searchByCursor(MemberSearchCondition condition, Long afterId, int size) {
+        InMemoryMemberSearch memory = memory();
+        if (memory != null) {
+            return memory.searchByCursor(condition, afterId, size);
+        }
+        List<MemberTeamDto> content = queryFactory
+                .select(new QMemberTeamDto(
+                        QMember.member.id.as("memberId"),
+                        QMember.member.username,
+                        QMember.member.age,
+                        QTeam.team.id.as("teamId"),
+                        QTeam.team.name.as("teamName")))
+                .from(QMember.member)
+                .leftJoin(QMember.member.team, QTeam.team)
+                .where(idGt(afterId),
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()))
+                .orderBy(QMember.member.id.asc())
+                .limit(size + 1) // 한건 더 가져와서 다음 페이지 여부 판단
+                .fetch();
+
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = content.subList(0, size);
+        }
+        return new MemberCursorPage(content, size, hasNext);
+    }
 
+    // List 로 모으지 않고 forward-only 커서로 한건씩 흘려보낸다, DTO 프로젝션이라 영속성컨텍스트에 쌓이는 것도 없음
+    @Override
+    public Stream<MemberTeamDto> searchStream(MemberSearchCondition condition, int fetchSize) {
+        InMemoryMemberSearch memory = memory();
+        if (memory != null) {
+            return memory.searchStream(condition, fetchSize);
+        }
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        QMember.member.id.as("memberId"),
+                        QMember.member.username,
+                        QMember.member.age,
+                        QTeam.team.id.as("teamId"),
+                        QTeam.team.name.as("teamName")))
+                .from(QMember.member)
+                .leftJoin(QMember.member.team, QTeam.team)
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()))
+                .orderBy(QMember.member.id.asc())
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .stream();
+    }
 
 }
@@ -0,0 +1,173 @@
+package study.querydsl.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.QTeam;
+import study.querydsl.support.QueryDeadline;
+
+/**
+ * search() 용 미리 직렬화된 JPQL 템플릿.
+ * 조건 유무(username/teamName/ageGoe/ageLoe)에 따라 쿼리 모양은 16가지뿐이라
+ * 모양별로 querydsl 표현식 트리를 한번만 만들고 JPQL 로 직렬화해 두고, 이후 호출은 파라미터만 바인딩한다.
+ * JPQL 문자열이 항상 같으니 Hibernate 쪽 쿼리 플랜 캐시도 그대로 탄다.
+ * teamName 은 TeamNameLookup 으로 팀 id 목록으로 바꿔서 member.team.id in (...) 로 바인딩한다.
+ */
+@Component
+public class MemberSearchTemplates {
+
+    static final int USERNAME = 1;
+    static final int TEAM_NAME = 1 << 1;
+    static final int AGE_GOE = 1 << 2;
+    static final int AGE_LOE = 1 << 3;
+    static final int SHAPES = 1 << 4;
+
+    private static final Param<String> USERNAME_PARAM = new Param<>(String.class, "username");
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final Param<Collection<Long>> TEAM_IDS_PARAM = new Param(Collection.class, "teamIds");
+    private static final Param<Integer> AGE_GOE_PARAM = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> AGE_LOE_PARAM = new Param<>(Integer.class, "ageLoe");
+
+    private final AtomicReferenceArray<Template> templates = new AtomicReferenceArray<>(SHAPES);
+    private final TeamNameLookup teamNameLookup;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong compiles = new AtomicLong();
+    private final AtomicLong compileNanos = new AtomicLong();
+    private final AtomicLong bindNanos = new AtomicLong();
+
+    public MemberSearchTemplates(TeamNameLookup teamNameLookup) {
+        this.teamNameLookup = teamNameLookup;
+    }
+
+    public List<MemberTeamDto> search(EntityManager em, MemberSearchCondition condition) {
+        int shape = shape(condition);
+        List<Long> teamIds = (shape & TEAM_NAME) != 0 ? teamNameLookup.findIds(condition.getTeamName()) : null;
+        if (teamIds != null && teamIds.isEmpty()) {
+            return new ArrayList<>(); // 없는 팀
+        }
+        long start = System.nanoTime();
+        Template template = templates.get(shape);
+        if (template == null) {
+            template = compile(shape);
+            compileNanos.addAndGet(System.nanoTime() - start);
+            compiles.incrementAndGet();
+            templates.compareAndSet(shape, null, template);
+        } else {
+            hits.incrementAndGet();
+        }
+
+        long bindStart = System.nanoTime();
+        Query query = QueryDeadline.apply(em.createQuery(template.jpql()));
+        JPAUtil.setConstants(query, template.constants(), bindings(condition, teamIds));
+        bindNanos.addAndGet(System.nanoTime() - bindStart);
+
+        List<?> rows = query.getResultList();
+        List<MemberTeamDto> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            result.add(template.projection().newInstance((Object[]) row));
+        }
+        return result;
+    }
+
+    static int shape(MemberSearchCondition condition) {
+        int shape = 0;
+        if (StringUtils.hasText(condition.getUsername())) {
+            shape |= USERNAME;
+        }
+        if (StringUtils.hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE;
+        }
+        return shape;
+    }
+
+    private Map<ParamExpression<?>, Object> bindings(MemberSearchCondition condition, List<Long> teamIds) {
+        Map<ParamExpression<?>, Object> params = new HashMap<>(8);
+        if (StringUtils.hasText(condition.getUsername())) {
+            params.put(USERNAME_PARAM, condition.getUsername());
+        }
+        if (teamIds != null) {
+            params.put(TEAM_IDS_PARAM, teamIds);
+        }
+        if (condition.getAgeGoe() != null) {
+            params.put(AGE_GOE_PARAM, condition.getAgeGoe());
+        }
+        if (condition.getAgeLoe() != null) {
+            params.put(AGE_LOE_PARAM, condition.getAgeLoe());
+        }
+        return params;
+    }
+
+    private Template compile(int shape) {
+        QMemberTeamDto projection = new QMemberTeamDto(
+                QMember.member.id.as("memberId"),
+                QMember.member.username,
+                QMember.member.age,
+                QTeam.team.id.as("teamId"),
+                QTeam.team.name.as("teamName"));
+        JPAQuery<MemberTeamDto> query = new JPAQuery<Void>()
+                .select(projection)
+                .from(QMember.member)
+                .leftJoin(QMember.member.team, QTeam.team)
+                .where((shape & USERNAME) != 0 ? QMember.member.username.eq(USERNAME_PARAM) : null,
+                        (shape & TEAM_NAME) != 0 ? Expressions.booleanTemplate("{0} in {1}", QMember.member.team.id, TEAM_IDS_PARAM) : null,
+                        (shape & AGE_GOE) != 0 ? QMember.member.age.goe(AGE_GOE_PARAM) : null,
+                        (shape & AGE_LOE) != 0 ? QMember.member.age.loe(AGE_LOE_PARAM) : null);
+
+        JPQLSerializer serializer = new JPQLSerializer(HQLTemplates.DEFAULT);
+        serializer.serialize(query.getMetadata(), false, null);
+        return new Template(serializer.toString(), List.copyOf(serializer.getConstants()), projection);
+    }
+
+    public TemplateStats stats() {
+        int compiled = 0;
+        for (int i = 0; i < SHAPES; i++) {
+            if (templates.get(i) != null) {
+                compiled++;
+            }
+        }
+        long compileCount = compiles.get();
+        long hitCount = hits.get();
+        long avgCompile = compileCount == 0 ? 0 : compileNanos.get() / compileCount;
+        long avgBind = compileCount + hitCount == 0 ? 0 : bindNanos.get() / (compileCount + hitCount);
+        return new TemplateStats(compiled, hitCount, compileCount, avgCompile, avgBind,
+                hitCount * avgCompile);
+    }
+
+    /**
+     * @param avgCompileNanos 표현식 트리 생성 + JPQL 직렬화 평균 시간 (템플릿이 없을때 드는 비용)
+     * @param avgBindNanos createQuery + 파라미터 바인딩 평균 시간
+     * @param savedNanos 템플릿 재사용으로 아낀 추정 시간 (hits * avgCompileNanos)
+     */
+    public record TemplateStats(int compiledShapes, long hits, long compiles,
+            long avgCompileNanos, long avgBindNanos, long savedNanos) {
+    }
+
+    private record Template(String jpql, List<Object> constants, QMemberTeamDto projection) {
+    }
+}
@@ -0,0 +1,34 @@
+package study.querydsl.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.stereotype.Repository;
+import jakarta.persistence.EntityManager;
+import study.querydsl.entity.QTeam;
+import study.querydsl.entity.Team;
+
+@Repository
+public class TeamJpaRepository {
+    
+    private final EntityManager em;
+    private final EntityIdLoader entityIdLoader;
+    
+    public TeamJpaRepository(EntityManager em, EntityIdLoader entityIdLoader) {
+        this.em = em;
+        this.entityIdLoader = entityIdLoader;
+    }
+    
+    public void save(Team team) {
+        em.persist(team);
+    }
+    
+    public Optional<Team> findById(Long id){
+        return Optional.ofNullable(em.find(Team.class, id));
+    }
+    
+    // findById 를 반복하지 말고 한번에, 요청한 id 순서로 (EntityIdLoader)
+    public List<Team> findAllByIds(Collection<Long> ids){
+        return entityIdLoader.findAll(QTeam.team, QTeam.team.id, ids);
+    }
+}
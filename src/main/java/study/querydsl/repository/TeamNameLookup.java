@@ -0,0 +1,64 @@
+package study.querydsl.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Component;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import study.querydsl.entity.QTeam;
+import study.querydsl.support.DeadlineJPAQueryFactory;
+import study.querydsl.support.TableChangeTracker;
+
+/**
+ * 팀명 -> 팀 id 조회.
+ * teamName 조건을 team 조인 없이 member.team.id 로 바로 걸기 위해 쓴다.
+ * 팀명은 유니크가 아니라서 id 목록을 돌려준다 (없는 팀이면 빈 목록).
+ * 프로세스 안 맵이 먼저, 없으면 query cache 를 탄 조회, team 쓰기가 감지되면 비운다.
+ */
+@Component
+public class TeamNameLookup {
+
+    private static final String QUERY_CACHE_REGION = "team-name";
+    private static final int MAX_NAMES = 10_000; // 없는 팀명으로 계속 찔러도 무한히 커지지 않게
+
+    private final JPAQueryFactory queryFactory;
+    private final Map<String, List<Long>> ids = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public TeamNameLookup(EntityManager em, TableChangeTracker tableChangeTracker) {
+        this.queryFactory = new DeadlineJPAQueryFactory(em); // 요청별 쿼리 마감을 타임아웃 힌트로 (QueryDeadline)
+        tableChangeTracker.addListener(table -> {
+            if (TableChangeTracker.TEAM.equals(table)) {
+                generation.incrementAndGet();
+                ids.clear();
+            }
+        });
+    }
+
+    public List<Long> findIds(String teamName) {
+        List<Long> cached = ids.get(teamName);
+        if (cached != null) {
+            return cached;
+        }
+        long startGeneration = generation.get();
+        List<Long> found = List.copyOf(queryFactory
+                .select(QTeam.team.id)
+                .from(QTeam.team)
+                .where(QTeam.team.name.eq(teamName))
+                .orderBy(QTeam.team.id.asc())
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .setHint(HibernateHints.HINT_CACHE_REGION, QUERY_CACHE_REGION)
+                .fetch());
+        // 조회 도중 team 쓰기가 있었으면 맵에는 넣지 않는다
+        if (startGeneration == generation.get()) {
+            if (ids.size() >= MAX_NAMES) {
+                ids.clear();
+            }
+            ids.put(teamName, found);
+        }
+        return found;
+    }
+}
@@ -0,0 +1,240 @@
+package study.querydsl.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import study.querydsl.dto.BulkJobResult;
+import study.querydsl.entity.BulkJobCheckpoint;
+import study.querydsl.entity.QMember;
+import study.querydsl.support.TableChangeTracker;
+
+/**
+ * 대량 update/delete 를 id 구간 단위로 나눠 실행.
+ * QuerydslBulkTest 처럼 한 문장으로 전체를 건드리면 락을 오래 잡고 undo 로그가 커지니
+ * (lastId, 구간 끝 id] 범위씩 각자 트랜잭션으로 처리하고, 같은 트랜잭션에서 체크포인트를 갱신한다.
+ * 같은 jobName 으로 다시 호출하면 체크포인트 다음부터 이어서 한다. 끝까지 가면 체크포인트는 지운다.
+ * 체크포인트에는 조건과 set 절의 해시도 남겨서, 같은 jobName 으로 다른 작업을 이어서 하려고 하면 예외.
+ *
+ * 조건(Predicate)은 member 컬럼만 쓸 수 있다 (벌크 DML 에서는 team 조인 불가).
+ */
+@Slf4j
+@Service
+public class MemberBulkService {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final TableChangeTracker tableChangeTracker;
+    private final int chunkSize;
+
+    public MemberBulkService(EntityManager em, PlatformTransactionManager transactionManager,
+            TableChangeTracker tableChangeTracker, @Value("${member.bulk.chunk-size:1000}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be >= 1");
+        }
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 바깥 트랜잭션에 합류하면 청크를 나누는 의미가 없다
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.tableChangeTracker = tableChangeTracker;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @param assignments set 절 지정, 예) {@code update -> update.set(QMember.member.age, QMember.member.age.add(1))}
+     */
+    public BulkJobResult update(String jobName, Predicate condition, Consumer<JPAUpdateClause> assignments) {
+        return run(jobName, condition, range -> {
+            AssignmentRecordingUpdateClause update = new AssignmentRecordingUpdateClause(em);
+            update.where(range);
+            assignments.accept(update);
+            return new Chunk("update " + update.assignments(), update::execute);
+        });
+    }
+
+    public BulkJobResult delete(String jobName, Predicate condition) {
+        return run(jobName, condition, range -> {
+            JPADeleteClause delete = queryFactory.delete(QMember.member).where(range);
+            return new Chunk("delete", delete::execute);
+        });
+    }
+
+    // 청크마다 벌크 통지가 가면 메모리 인덱스들이 청크마다 전체를 다시 읽으니 작업이 끝날때 한번만
+    private BulkJobResult run(String jobName, Predicate condition, ChunkStatement statement) {
+        return tableChangeTracker.deferBulk(() -> runChunks(jobName, condition, statement));
+    }
+
+    private BulkJobResult runChunks(String jobName, Predicate condition, ChunkStatement statement) {
+        long start = System.nanoTime();
+        BulkJobCheckpoint initial = transactionTemplate.execute(status -> checkpoint(jobName));
+        long resumedFrom = initial.getLastId();
+        long resumedRows = initial.getProcessed();
+        if (resumedFrom > 0) {
+            log.info("bulk job {} resumes after member id {} ({} rows done before)", jobName, resumedFrom, resumedRows);
+        }
+
+        long rows = 0;
+        int chunks = 0;
+        while (true) {
+            Long chunkRows = transactionTemplate.execute(status -> chunk(jobName, condition, statement));
+            if (chunkRows == null) {
+                break;
+            }
+            rows += chunkRows;
+            chunks++;
+            log.info("bulk job {}: chunk {} -> {} rows, {} total ({} rows/s)",
+                    jobName, chunks, chunkRows, rows, rate(rows, start));
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            BulkJobCheckpoint done = em.find(BulkJobCheckpoint.class, jobName);
+            if (done != null) {
+                em.remove(done);
+            }
+        });
+        BulkJobResult result = new BulkJobResult(jobName, rows, chunks, resumedFrom, resumedRows,
+                (System.nanoTime() - start) / 1_000_000);
+        log.info("bulk job {} finished: {} rows in {} chunks, {} ms ({} rows/s)",
+                jobName, rows, chunks, result.elapsedMillis(), (long) result.rowsPerSecond());
+        return result;
+    }
+
+    /**
+     * 체크포인트 다음 구간 하나를 처리
+     * @return 처리 건수, 남은 대상이 없으면 null
+     */
+    private Long chunk(String jobName, Predicate condition, ChunkStatement statement) {
+        BulkJobCheckpoint checkpoint = checkpoint(jobName);
+        Long lastId = checkpoint.getLastId();
+
+        // 구간 끝: 대상 중 chunkSize 번째 id, 그만큼 안남았으면 마지막 id
+        Long upperId = queryFactory
+                .select(QMember.member.id)
+                .from(QMember.member)
+                .where(QMember.member.id.gt(lastId), condition)
+                .orderBy(QMember.member.id.asc())
+                .offset(chunkSize - 1)
+                .limit(1)
+                .fetchFirst();
+        if (upperId == null) {
+            upperId = queryFactory
+                    .select(QMember.member.id.max())
+                    .from(QMember.member)
+                    .where(QMember.member.id.gt(lastId), condition)
+                    .fetchOne();
+            if (upperId == null) {
+                return null;
+            }
+        }
+
+        Chunk dml = statement.prepare(QMember.member.id.gt(lastId)
+                .and(QMember.member.id.loe(upperId))
+                .and(condition));
+        // 같은 jobName 인데 조건이나 set 절이 다르면 다른 작업의 lastId 부터 이어서 행을 건너뛰게 된다
+        checkpoint.bind(signature(dml.operation(), condition));
+        long rows = dml.execute().getAsLong();
+        checkpoint.advance(upperId, rows);
+        em.flush();
+        // 벌크 연산 뒤에는 영속성컨텍스트를 비운다 (open-in-view 로 요청 내내 같은 컨텍스트일 수 있다)
+        em.clear();
+        return rows;
+    }
+
+    private BulkJobCheckpoint checkpoint(String jobName) {
+        BulkJobCheckpoint checkpoint = em.find(BulkJobCheckpoint.class, jobName);
+        if (checkpoint == null) {
+            checkpoint = new BulkJobCheckpoint(jobName);
+            em.persist(checkpoint);
+        }
+        return checkpoint;
+    }
+
+    private static long rate(long rows, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed == 0 ? rows : rows * 1_000_000_000L / elapsed;
+    }
+
+    // 작업 내용(조건 + update/delete 와 set 절)의 해시, 상수까지 들어간 Querydsl 표현식 문자열로 만든다
+    private static String signature(String operation, Predicate condition) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((operation + " where " + condition).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkStatement {
+        Chunk prepare(Predicate range);
+    }
+
+    /**
+     * @param operation 구간 조건을 뺀 DML 내용 (체크포인트 대조용)
+     */
+    private record Chunk(String operation, LongSupplier execute) {
+    }
+
+    /**
+     * set 절을 경로 순으로 기록해두는 update (체크포인트 대조용)
+     */
+    private static final class AssignmentRecordingUpdateClause extends JPAUpdateClause {
+
+        private final Map<String, String> assignments = new TreeMap<>();
+
+        AssignmentRecordingUpdateClause(EntityManager em) {
+            super(em, QMember.member);
+        }
+
+        @Override
+        public <T> JPAUpdateClause set(Path<T> path, T value) {
+            assignments.put(path.toString(), String.valueOf(value));
+            return super.set(path, value);
+        }
+
+        @Override
+        public <T> JPAUpdateClause set(Path<T> path, Expression<? extends T> expression) {
+            assignments.put(path.toString(), String.valueOf(expression));
+            return super.set(path, expression);
+        }
+
+        @Override
+        public <T> JPAUpdateClause setNull(Path<T> path) {
+            assignments.put(path.toString(), "null");
+            return super.setNull(path);
+        }
+
+        @Override
+        public JPAUpdateClause set(List<? extends Path<?>> paths, List<?> values) {
+            for (int i = 0; i < paths.size(); i++) {
+                assignments.put(paths.get(i).toString(), String.valueOf(values.get(i)));
+            }
+            return super.set(paths, values);
+        }
+
+        String assignments() {
+            return assignments.toString();
+        }
+    }
+}
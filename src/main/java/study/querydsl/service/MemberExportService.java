@@ -0,0 +1,62 @@
+package study.querydsl.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepositoryImpl;
+
+/**
+ * 검색 결과를 NDJSON(한 줄에 MemberTeamDto 하나)으로 흘려보낸다.
+ * 커서에서 읽은 행을 바로 쓰고 버리기 때문에 결과 건수와 상관없이 힙 사용량이 일정하다.
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberExportService {
+
+    private static final int FLUSH_EVERY = 1000;
+
+    private final MemberRepositoryImpl memberRepositoryImpl;
+    private final ObjectMapper objectMapper;
+
+    @Value("${member.export.fetch-size:500}")
+    private int fetchSize;
+
+    /**
+     * @return 내보낸 행 수
+     */
+    @Transactional(readOnly = true)
+    public long exportNdjson(MemberSearchCondition condition, OutputStream out) throws IOException {
+        long rows = 0;
+        // 행마다 flush 하지 않도록 FLUSH_AFTER_WRITE_VALUE 를 끄고 FLUSH_EVERY 단위로만 내보낸다
+        ObjectWriter writer = objectMapper.writerFor(MemberTeamDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // 루트 값 사이 기본 구분자(" ")가 줄 앞에 붙지 않게, 구분은 '\n' 으로만
+        generator.setRootValueSeparator(null);
+        try (Stream<MemberTeamDto> stream = memberRepositoryImpl.searchStream(condition, fetchSize)) {
+            Iterator<MemberTeamDto> it = stream.iterator();
+            while (it.hasNext()) {
+                writer.writeValue(generator, it.next());
+                generator.writeRaw('\n');
+                if (++rows % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+        } finally {
+            generator.close();
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,240 @@
+package study.querydsl.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.dto.MemberImportResult.Rejection;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QTeam;
+import study.querydsl.entity.Team;
+
+/**
+ * 파트너사 회원 CSV (username,age,teamName) 가져오기.
+ * 파일을 한 줄씩 읽어서 member.import.chunk-size 행마다 커밋하니 메모리는 파일 크기가 아니라 chunk 크기만큼만 쓴다.
+ * 커밋 단위 안에서는 MemberSeedService 처럼 JDBC 배치 크기마다 flush/clear.
+ * 팀명 -> 팀 id 는 가져오는 동안만 쓰는 로컬 캐시로, 없는 팀은 만든다 (만든 팀은 커밋된 뒤에 캐시에 넣는다).
+ * 형식이 잘못된 행은 건너뛰고 센다, DB 오류는 그 청크만 롤백되고 예외 (앞 청크들은 이미 커밋됨).
+ */
+@Slf4j
+@Service
+public class MemberImportService {
+
+    private static final int MAX_REJECTIONS = 100;
+    private static final int MAX_CACHED_TEAMS = 10_000; // 행마다 팀명이 달라도 무한히 커지지 않게
+    private static final int MAX_USERNAME_LENGTH = 255;
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int flushSize;
+
+    public MemberImportService(EntityManager em, PlatformTransactionManager transactionManager,
+            @Value("${member.import.chunk-size:10000}") int chunkSize,
+            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}") int flushSize) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.flushSize = flushSize;
+    }
+
+    public MemberImportResult importCsv(InputStream in) throws IOException {
+        long start = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        Map<String, Long> teams = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > MAX_CACHED_TEAMS;
+            }
+        };
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        List<Rejection> rejections = new ArrayList<>();
+        long accepted = 0;
+        long rejected = 0;
+        int teamsCreated = 0;
+        int commits = 0;
+
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber == 1) {
+                line = line.startsWith("\uFEFF") ? line.substring(1) : line; // 엑셀에서 저장한 UTF-8 BOM
+                if (isHeader(line)) {
+                    continue;
+                }
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                chunk.add(parse(line));
+            } catch (IllegalArgumentException e) {
+                rejected++;
+                if (rejections.size() < MAX_REJECTIONS) {
+                    rejections.add(new Rejection(lineNumber, e.getMessage()));
+                }
+                continue;
+            }
+            if (chunk.size() == chunkSize) {
+                teamsCreated += commit(chunk, teams);
+                accepted += chunk.size();
+                commits++;
+                chunk.clear();
+                log.info("imported {} members, rejected {} ({} rows/s)", accepted, rejected, rate(accepted, start));
+            }
+        }
+        if (!chunk.isEmpty()) {
+            teamsCreated += commit(chunk, teams);
+            accepted += chunk.size();
+            commits++;
+        }
+
+        MemberImportResult result = new MemberImportResult(accepted, rejected, teamsCreated, commits,
+                (System.nanoTime() - start) / 1_000_000, rejections);
+        log.info("import finished: {} members, {} rejected, {} new teams in {} ms ({} rows/s)",
+                accepted, rejected, teamsCreated, result.elapsedMillis(), (long) result.rowsPerSecond());
+        return result;
+    }
+
+    // @return 새로 만든 팀 수
+    private int commit(List<Row> rows, Map<String, Long> teams) {
+        Map<String, Long> created = transactionTemplate.execute(status -> {
+            Map<String, Long> newTeams = new HashMap<>();
+            for (int i = 0; i < rows.size(); i++) {
+                Row row = rows.get(i);
+                Member member = new Member(row.username(), row.age());
+                if (row.teamName() != null) {
+                    // getReference 는 select 없이 프록시만, 생성자의 changeTeam 을 타면 members 컬렉션까지 건드리게 된다
+                    member.setTeam(em.getReference(Team.class, teamId(row.teamName(), teams, newTeams)));
+                }
+                em.persist(member);
+                if ((i + 1) % flushSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            em.clear();
+            return newTeams;
+        });
+        teams.putAll(created); // 롤백됐으면 여기까지 오지 않는다
+        return created.size();
+    }
+
+    private Long teamId(String teamName, Map<String, Long> teams, Map<String, Long> newTeams) {
+        Long id = newTeams.get(teamName);
+        if (id == null) {
+            id = teams.get(teamName);
+        }
+        if (id != null) {
+            return id;
+        }
+        // 팀명은 유니크가 아니라서 같은 이름이 여럿이면 먼저 만든 팀으로
+        id = queryFactory
+                .select(QTeam.team.id)
+                .from(QTeam.team)
+                .where(QTeam.team.name.eq(teamName))
+                .orderBy(QTeam.team.id.asc())
+                .fetchFirst();
+        if (id != null) {
+            teams.put(teamName, id);
+            return id;
+        }
+        Team team = new Team(teamName);
+        em.persist(team);
+        newTeams.put(teamName, team.getId());
+        return team.getId();
+    }
+
+    private static boolean isHeader(String line) {
+        try {
+            return split(line).get(0).trim().equalsIgnoreCase("username");
+        } catch (IllegalArgumentException e) {
+            return false; // 데이터 행으로 보고 parse 에서 거른다
+        }
+    }
+
+    static Row parse(String line) {
+        List<String> fields = split(line);
+        if (fields.size() != 3) {
+            throw new IllegalArgumentException("expected 3 columns (username,age,teamName) but got " + fields.size());
+        }
+        String username = fields.get(0).trim();
+        if (username.isEmpty()) {
+            throw new IllegalArgumentException("username is empty");
+        }
+        if (username.length() > MAX_USERNAME_LENGTH) {
+            throw new IllegalArgumentException("username is longer than " + MAX_USERNAME_LENGTH);
+        }
+        int age;
+        try {
+            age = Integer.parseInt(fields.get(1).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("age is not a number: " + fields.get(1));
+        }
+        if (age < 0) {
+            throw new IllegalArgumentException("age must be >= 0: " + age);
+        }
+        String teamName = fields.get(2).trim();
+        return new Row(username, age, teamName.isEmpty() ? null : teamName);
+    }
+
+    /**
+     * 쉼표로 나눈다, 큰따옴표로 감싼 칸 안의 쉼표와 "" (따옴표 자체) 도 처리. 한 행이 여러 줄에 걸치는 경우는 지원하지 않는다.
+     */
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quote");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static long rate(long rows, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed == 0 ? rows : rows * 1_000_000_000L / elapsed;
+    }
+
+    record Row(String username, int age, String teamName) {
+    }
+}
@@ -0,0 +1,131 @@
+package study.querydsl.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.cache.MemberSearchKey;
+import study.querydsl.cache.MemberSearchResultCache;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepositoryImpl;
+import study.querydsl.support.QueryDeadline;
+import study.querydsl.support.SqlStatementCounter;
+
+/**
+ * searchPageComplex 의 내용 쿼리와 count 쿼리를 가상 스레드에서 동시에 돌린다.
+ * 각각 별도 읽기전용 트랜잭션(= 별도 커넥션)이라 응답시간이 두 쿼리의 합이 아니라 둘 중 느린쪽에 가까워진다.
+ * 한쪽이 실패하면 다른쪽을 취소하고, 전체가 timeout 을 넘기면 둘 다 취소한다.
+ * 마지막 페이지처럼 내용만으로 total 을 알면 count 는 기다리지 않고 취소한다.
+ * 취소는 interrupt 없이 (cancel(false)) 아직 시작 안한 쿼리만 막는다. 가상 스레드를 JDBC 소켓 I/O 중에 interrupt 하면
+ * 소켓이 닫혀서 풀의 커넥션이 깨지니, 이미 돌고 있는 쿼리는 타임아웃 힌트(마감)까지만 돌고 끝나게 둔다.
+ * member.search.parallel-page=false 면 기존처럼 순서대로 실행.
+ */
+@Service
+public class MemberPageSearchService {
+
+    private final MemberRepositoryImpl memberRepositoryImpl;
+    private final MemberSearchResultCache resultCache;
+    private final ExecutorService executor;
+    private final TransactionTemplate readOnly;
+    private final boolean parallel;
+    private final Duration timeout;
+
+    public MemberPageSearchService(MemberRepositoryImpl memberRepositoryImpl, MemberSearchResultCache resultCache,
+            ExecutorService memberQueryExecutor, PlatformTransactionManager transactionManager,
+            @Value("${member.search.parallel-page:true}") boolean parallel,
+            @Value("${member.search.parallel-timeout:5s}") Duration timeout) {
+        this.memberRepositoryImpl = memberRepositoryImpl;
+        this.resultCache = resultCache;
+        this.executor = memberQueryExecutor;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.parallel = parallel;
+        this.timeout = timeout;
+    }
+
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        if (!parallel) {
+            return memberRepositoryImpl.searchPageComplex(condition, pageable);
+        }
+        return resultCache.page("searchPageComplex", MemberSearchKey.of(condition), pageable,
+                () -> searchPageParallel(condition, pageable));
+    }
+
+    public Page<MemberTeamDto> searchPageParallel(MemberSearchCondition condition, Pageable pageable) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        CompletableFuture<List<MemberTeamDto>> content = new CompletableFuture<>();
+        CompletableFuture<Long> count = new CompletableFuture<>();
+        // 요청 스레드의 쿼리 마감(QueryDeadline)을 가져가되 timeout 보다 늦지 않게, 취소된 뒤에도 DB 에서 계속 돌지 않도록
+        // 요청별 SQL 수(SqlStatementCounter)도 요청 스레드의 카운터에 더한다
+        Future<?> contentTask = submit(content, SqlStatementCounter.propagate(QueryDeadline.propagate(
+                () -> readOnly.execute(status -> memberRepositoryImpl.searchPageContent(condition, pageable)), deadline)));
+        Future<?> countTask = submit(count, SqlStatementCounter.propagate(QueryDeadline.propagate(
+                () -> readOnly.execute(status -> memberRepositoryImpl.searchCount(condition)), deadline)));
+        // 한쪽이 실패하면 다른쪽도 바로 끝낸다
+        content.whenComplete((result, e) -> {
+            if (e != null) {
+                countTask.cancel(false);
+                count.completeExceptionally(e);
+            }
+        });
+        count.whenComplete((result, e) -> {
+            if (e != null) {
+                contentTask.cancel(false);
+                content.completeExceptionally(e);
+            }
+        });
+
+        try {
+            List<MemberTeamDto> rows = await(content, deadline);
+            // 첫 페이지가 덜 찬 경우처럼 total 을 알 수 있으면 count 결과는 기다리지 않는다
+            Page<MemberTeamDto> page = PageableExecutionUtils.getPage(rows, pageable, () -> await(count, deadline));
+            // total 을 내용에서 알았으면 count 는 필요 없다 (이미 돌고 있으면 위 타임아웃 힌트 안에서 끝난다)
+            countTask.cancel(false);
+            return page;
+        } catch (RuntimeException e) {
+            contentTask.cancel(false);
+            countTask.cancel(false);
+            throw e;
+        }
+    }
+
+    private <T> Future<?> submit(CompletableFuture<T> future, Supplier<T> query) {
+        return executor.submit(() -> {
+            try {
+                future.complete(query.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+    }
+
+    private static <T> T await(CompletableFuture<T> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("member page search timed out", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("member page search interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydsl.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 기동시 대량 적재, member.seed.rows 가 있을때만 동작한다.
+ * ex) --member.seed.rows=10000000 --member.seed.teams=1000 --logging.level.org.hibernate.SQL=info
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "member.seed", name = "rows")
+public class MemberSeedRunner implements ApplicationRunner {
+
+    private final MemberSeedService memberSeedService;
+
+    @Value("${member.seed.rows}")
+    private long rows;
+
+    @Value("${member.seed.teams:10}")
+    private int teams;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        memberSeedService.seed(rows, teams);
+    }
+}
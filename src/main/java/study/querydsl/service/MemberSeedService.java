@@ -0,0 +1,97 @@
+package study.querydsl.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import study.querydsl.dto.BulkLoadResult;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * 스테이징/부하테스트용 대량 적재.
+ * initMember 처럼 한 트랜잭션에 하나씩 persist 하면 영속성컨텍스트가 계속 커지니
+ * chunk 단위로 커밋하고, 그 안에서도 JDBC 배치 크기만큼 flush/clear 해서 힙 사용량을 row 수와 무관하게 유지한다.
+ * (hibernate.jdbc.batch_size, order_inserts 설정이 함께 켜져 있어야 배치로 나간다)
+ */
+@Slf4j
+@Service
+public class MemberSeedService {
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int flushSize;
+
+    public MemberSeedService(EntityManager em, PlatformTransactionManager transactionManager,
+            @Value("${member.seed.chunk-size:10000}") int chunkSize,
+            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}") int flushSize) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.flushSize = flushSize;
+    }
+
+    public BulkLoadResult seed(long rows, int teams) {
+        if (rows < 0 || teams < 1) {
+            throw new IllegalArgumentException("rows must be >= 0 and teams >= 1");
+        }
+        long start = System.nanoTime();
+        List<Long> teamIds = transactionTemplate.execute(status -> persistTeams(teams));
+
+        long done = 0;
+        while (done < rows) {
+            long from = done;
+            int size = (int) Math.min(chunkSize, rows - done);
+            transactionTemplate.executeWithoutResult(status -> persistMembers(from, size, teamIds));
+            done += size;
+            log.info("seeded {}/{} members ({} rows/s)", done, rows, rate(done, start));
+        }
+
+        BulkLoadResult result = new BulkLoadResult(rows, teams, (System.nanoTime() - start) / 1_000_000);
+        log.info("seed finished: {} members, {} teams in {} ms ({} rows/s)",
+                rows, teams, result.elapsedMillis(), (long) result.rowsPerSecond());
+        return result;
+    }
+
+    private List<Long> persistTeams(int teams) {
+        List<Long> ids = new ArrayList<>(teams);
+        for (int i = 0; i < teams; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            ids.add(team.getId());
+            if ((i + 1) % flushSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        return ids;
+    }
+
+    private void persistMembers(long from, int size, List<Long> teamIds) {
+        for (int i = 0; i < size; i++) {
+            long seq = from + i;
+            Member member = new Member("member" + seq, (int) (seq % 100));
+            // getReference 는 select 없이 프록시만, 생성자의 changeTeam 을 타면 members 컬렉션까지 건드리게 된다
+            member.setTeam(em.getReference(Team.class, teamIds.get((int) (seq % teamIds.size()))));
+            em.persist(member);
+            if ((i + 1) % flushSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    private static long rate(long rows, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed == 0 ? rows : rows * 1_000_000_000L / elapsed;
+    }
+}
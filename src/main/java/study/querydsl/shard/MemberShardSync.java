@@ -0,0 +1,219 @@
+package study.querydsl.shard;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import lombok.extern.slf4j.Slf4j;
+import study.querydsl.support.MemberChangeHub;
+import study.querydsl.support.MemberChangeListener;
+import study.querydsl.support.TableChangeTracker;
+
+/**
+ * 기본 DB 의 member/team 을 샤드({@link MemberShards})로 옮겨 담는다.
+ * 기동할 때 한번 전체를 복사하고(resync), 그 뒤 커밋된 엔티티 변경은 MemberChangeHub 로 받아 바로 샤드에 쓴다.
+ * 벌크 변경이나 샤드 쓰기 실패처럼 어떤 행이 어긋났는지 모르면 다시 전체를 복사한다.
+ * 샤드별 복사는 그 샤드의 트랜잭션 하나라 복사하는 동안 검색은 이전 내용을 본다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("member.shards.urls")
+public class MemberShardSync implements MemberChangeListener {
+
+    private static final int BATCH_SIZE = 500;
+    private static final int[] MEMBER_TYPES = {Types.BIGINT, Types.VARCHAR, Types.INTEGER, Types.BIGINT};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MemberShards shards;
+    private final ShardedMemberSearch shardedMemberSearch;
+    private final ExecutorService executor;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private List<Runnable> pending; // 복사 중 들어온 변경, 복사가 끝나면 다시 쓴다. guarded by lock
+    private volatile boolean synced;
+    private final AtomicBoolean resyncScheduled = new AtomicBoolean();
+    private final AtomicLong resyncs = new AtomicLong();
+
+    public MemberShardSync(DataSource dataSource, MemberShards shards, ShardedMemberSearch shardedMemberSearch,
+            MemberChangeHub memberChangeHub, @Qualifier("memberQueryExecutor") ExecutorService executor) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(1000);
+        this.shards = shards;
+        this.shardedMemberSearch = shardedMemberSearch;
+        this.executor = executor;
+        memberChangeHub.addListener(this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        resync();
+    }
+
+    /**
+     * 샤드가 기본 DB 의 커밋된 내용을 따라왔는지, 복사 중이거나 복사가 예정돼 있으면 false
+     */
+    public boolean synced() {
+        return synced;
+    }
+
+    public long resyncs() {
+        return resyncs.get();
+    }
+
+    /**
+     * 기본 DB 에서 샤드마다 전체를 다시 복사한다. 복사하는 동안 들어온 변경은 끝난 뒤 다시 쓴다 (upsert/delete 라 두번 써도 같다).
+     * 샤드마다 member 를 한번씩 다 읽고 shardOf 로 거른다 (팀 id -> 샤드 규칙을 SQL 로 옮기지 않게).
+     */
+    public synchronized void resync() {
+        resyncScheduled.set(false); // 이제부터 들어온 변경은 이번 복사에 담기거나 pending 으로 온다
+        synced = false;
+        lock.writeLock().lock();
+        try {
+            pending = Collections.synchronizedList(new ArrayList<>());
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.nanoTime();
+        long members = 0;
+        try {
+            // 기본(primary) 커넥션으로 읽는다, replica 지연으로 빠진 행이 생기지 않게
+            List<Object[]> teams = jdbcTemplate.query("select id, name from team",
+                    (rs, rowNum) -> new Object[] {rs.getLong(1), rs.getString(2)});
+            for (int shard = 0; shard < shards.size(); shard++) {
+                members += copy(shard, teams);
+            }
+        } finally {
+            // 복사가 실패해도(샤드는 이전 내용으로 롤백) 그동안 들어온 변경은 버리지 않는다
+            lock.writeLock().lock();
+            try {
+                pending.forEach(this::write);
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        synced = !resyncScheduled.get();
+        resyncs.incrementAndGet();
+        log.info("member shards resynced: {} members into {} shards in {} ms",
+                members, shards.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private long copy(int shard, List<Object[]> teams) {
+        JdbcTemplate target = shards.shard(shard).getJdbcTemplate();
+        Long copied = shards.transaction(shard).execute(status -> {
+            target.update("delete from member");
+            target.update("delete from team");
+            target.batchUpdate("insert into team (id, name) values (?, ?)", teams,
+                    new int[] {Types.BIGINT, Types.VARCHAR});
+            List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+            long[] count = {0};
+            jdbcTemplate.query("select id, username, age, team_id from member", (RowCallbackHandler) rs -> {
+                long teamId = rs.getLong(4);
+                Long team = rs.wasNull() ? null : teamId;
+                if (shards.shardOf(team) != shard) {
+                    return;
+                }
+                batch.add(new Object[] {rs.getLong(1), rs.getString(2), rs.getInt(3), team});
+                if (batch.size() == BATCH_SIZE) {
+                    count[0] += insertMembers(target, batch);
+                }
+            });
+            count[0] += insertMembers(target, batch);
+            return count[0];
+        });
+        return copied == null ? 0 : copied;
+    }
+
+    private static int insertMembers(JdbcTemplate target, List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        target.batchUpdate("insert into member (id, username, age, team_id) values (?, ?, ?, ?)", batch, MEMBER_TYPES);
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+
+    // ---- 변경 반영 (MemberChangeHub, 커밋 후) ----
+
+    @Override
+    public void memberInserted(MemberRow row) {
+        apply(() -> shardedMemberSearch.save(row));
+    }
+
+    @Override
+    public void memberUpdated(MemberRow before, MemberRow after) {
+        apply(() -> shardedMemberSearch.update(after)); // before 는 null 이거나 낡았을 수 있어 보지 않는다
+    }
+
+    @Override
+    public void memberDeleted(MemberRow row) {
+        apply(() -> shardedMemberSearch.delete(row.id()));
+    }
+
+    @Override
+    public void teamSaved(long teamId, String name) {
+        apply(() -> shardedMemberSearch.saveTeam(teamId, name));
+    }
+
+    @Override
+    public void teamDeleted(long teamId) {
+        apply(() -> shardedMemberSearch.deleteTeam(teamId));
+    }
+
+    @Override
+    public void bulkChanged(String table) {
+        if (TableChangeTracker.MEMBER.equals(table) || TableChangeTracker.TEAM.equals(table)) {
+            scheduleResync();
+        }
+    }
+
+    // 변경끼리는 동시에 써도 되고, 복사 시작/끝과는 겹치지 않게
+    private void apply(Runnable change) {
+        lock.readLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(change);
+            } else {
+                write(change);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Runnable change) {
+        try {
+            change.run();
+        } catch (RuntimeException e) {
+            log.warn("member shard write failed, resyncing shards", e);
+            scheduleResync();
+        }
+    }
+
+    private void scheduleResync() {
+        synced = false;
+        if (resyncScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    resync();
+                } catch (RuntimeException e) {
+                    log.warn("member shard resync failed, shards may be stale until next resync", e);
+                }
+            });
+        }
+    }
+}
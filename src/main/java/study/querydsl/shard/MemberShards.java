@@ -0,0 +1,98 @@
+package study.querydsl.shard;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import study.querydsl.support.DeadlineJdbcTemplate;
+
+/**
+ * member 를 team_id 로 나눠 담는 샤드 DB 들 (member.shards.urls, 쉼표로 구분).
+ * team 은 작고 거의 안바뀌니 모든 샤드에 같은 내용을 두고 (조인을 샤드 안에서), member 는 team_id 로 한 샤드에만 둔다.
+ * 팀이 없는 회원은 0번 샤드.
+ *
+ * 샤드 DataSource 는 빈으로 등록하지 않는다, DataSource 빈이 생기면 spring.datasource 자동설정이 빠진다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("member.shards.urls")
+public class MemberShards implements AutoCloseable {
+
+    private static final String[] SCHEMA = {
+            "create table if not exists team (id bigint primary key, name varchar(255))",
+            "create index if not exists idx_team_name on team (name)",
+            "create table if not exists member (id bigint primary key, username varchar(255), age integer not null, team_id bigint)",
+            "create index if not exists idx_member_team_id on member (team_id)"
+    };
+
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+    private final List<NamedParameterJdbcTemplate> shards = new ArrayList<>();
+    private final List<TransactionTemplate> transactions = new ArrayList<>();
+
+    public MemberShards(DataSourceProperties properties,
+            @Value("${member.shards.urls}") String[] urls,
+            @Value("${member.shards.username:${spring.datasource.username:}}") String username,
+            @Value("${member.shards.password:${spring.datasource.password:}}") String password,
+            @Value("${member.shards.pool-size:10}") int poolSize,
+            @Value("${member.shards.connection-timeout:1s}") Duration connectionTimeout) {
+        try {
+            for (String url : urls) {
+                HikariDataSource dataSource = new HikariDataSource();
+                dataSource.setPoolName("shard-" + dataSources.size());
+                dataSource.setDriverClassName(properties.determineDriverClassName());
+                dataSource.setJdbcUrl(url.trim());
+                dataSource.setUsername(username);
+                dataSource.setPassword(password);
+                dataSource.setMaximumPoolSize(poolSize);
+                dataSource.setConnectionTimeout(connectionTimeout.toMillis());
+                dataSources.add(dataSource);
+                // 검색 쪽 마감(QueryDeadline)을 문장 타임아웃으로
+                NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(new DeadlineJdbcTemplate(dataSource));
+                for (String ddl : SCHEMA) {
+                    jdbcTemplate.getJdbcTemplate().execute(ddl);
+                }
+                shards.add(jdbcTemplate);
+                transactions.add(new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+        log.info("member shards: {}", shards.size());
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    /**
+     * @param teamId null 이면 (팀 없음) 0번
+     */
+    public int shardOf(Long teamId) {
+        return teamId == null ? 0 : (int) Math.floorMod(teamId, (long) shards.size());
+    }
+
+    public NamedParameterJdbcTemplate shard(int shard) {
+        return shards.get(shard);
+    }
+
+    /**
+     * 그 샤드 하나의 로컬 트랜잭션 (안에서 shard(shard) 로 보낸 문장이 같은 커넥션을 쓴다)
+     */
+    public TransactionTemplate transaction(int shard) {
+        return transactions.get(shard);
+    }
+
+    @Override
+    public void close() {
+        dataSources.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,277 @@
+package study.querydsl.shard;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.support.MemberChangeListener.MemberRow;
+import study.querydsl.support.QueryDeadline;
+
+/**
+ * team_id 로 나눈 샤드({@link MemberShards})에 대한 쓰기와 검색.
+ * teamName 조건은 팀 id -> 샤드로 바꿔서 그 팀이 있는 샤드에만, 나머지 조건은 모든 샤드에 동시에 보내고 모은다.
+ * 샤드별 결과를 member id 순으로 받아서 k-way merge 하니 페이지 내용은 단일 DB 의 id 순 결과와 같고,
+ * total count 는 샤드별 count 의 합이다.
+ * 페이지는 샤드마다 offset + size 건을 읽어서 합친다 (샤드별 offset 은 알 수 없다), 깊은 페이지는 커서(/v4) 를 쓰는게 낫다.
+ * 샤드 내용은 {@link MemberShardSync} 가 기본 DB 의 커밋된 변경을 받아 채운다.
+ */
+@Component
+@ConditionalOnProperty("member.shards.urls")
+public class ShardedMemberSearch {
+
+    private static final String SELECT = "select m.id, m.username, m.age, t.id as team_id, t.name as team_name"
+            + " from member m left join team t on t.id = m.team_id";
+    private static final String COUNT = "select count(*) from member m";
+
+    private static final RowMapper<MemberTeamDto> ROW_MAPPER = (rs, rowNum) -> new MemberTeamDto(
+            rs.getLong(1),
+            rs.getString(2),
+            rs.getInt(3),
+            rs.getObject(4, Long.class),
+            rs.getString(5));
+
+    private final MemberShards shards;
+    private final ExecutorService executor;
+    private final Duration timeout;
+
+    public ShardedMemberSearch(MemberShards shards, @Qualifier("memberQueryExecutor") ExecutorService executor,
+            @Value("${member.shards.timeout:5s}") Duration timeout) {
+        this.shards = shards;
+        this.executor = executor;
+        this.timeout = timeout;
+    }
+
+    // ---- 쓰기 ----
+
+    // team 은 모든 샤드에
+    public void saveTeam(long teamId, String name) {
+        for (int shard = 0; shard < shards.size(); shard++) {
+            shards.shard(shard).update("merge into team (id, name) key (id) values (:id, :name)",
+                    new MapSqlParameterSource("id", teamId).addValue("name", name));
+        }
+    }
+
+    public void save(MemberRow row) {
+        shards.shard(shards.shardOf(row.teamId())).update(
+                "merge into member (id, username, age, team_id) key (id) values (:id, :username, :age, :teamId)",
+                new MapSqlParameterSource("id", row.id())
+                        .addValue("username", row.username())
+                        .addValue("age", row.age())
+                        .addValue("teamId", row.teamId()));
+    }
+
+    /**
+     * 팀이 바뀌어 샤드가 달라졌을 수 있으니 새 샤드에 넣고 다른 샤드에서는 지운다.
+     * 변경 전 상태로 옛 샤드를 고르지 않는다, 모를 수도 있고(null) 같은 행을 동시에 고친 트랜잭션이면 낡았다.
+     * 샤드간 트랜잭션이 없어서 그 사이 잠깐은 두 샤드에 다 보일 수 있다 (안 보이는 것보다는 낫다).
+     */
+    public void update(MemberRow row) {
+        save(row);
+        int target = shards.shardOf(row.teamId());
+        for (int shard = 0; shard < shards.size(); shard++) {
+            if (shard != target) {
+                shards.shard(shard).update("delete from member where id = :id", new MapSqlParameterSource("id", row.id()));
+            }
+        }
+    }
+
+    // 삭제 직전 상태(팀)를 모를 수 있어 모든 샤드에서
+    public void delete(long id) {
+        for (int shard = 0; shard < shards.size(); shard++) {
+            shards.shard(shard).update("delete from member where id = :id", new MapSqlParameterSource("id", id));
+        }
+    }
+
+    public void deleteTeam(long teamId) {
+        for (int shard = 0; shard < shards.size(); shard++) {
+            shards.shard(shard).update("delete from team where id = :id", new MapSqlParameterSource("id", teamId));
+        }
+    }
+
+    // ---- 검색 ----
+
+    // 샤드를 합친 id 순 전체 결과
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        Map<Integer, List<Long>> targets = targetShards(condition);
+        List<List<MemberTeamDto>> sorted = scatter(targets, (shard, teamIds) -> shards.shard(shard).query(
+                SELECT + where(condition, teamIds) + " order by m.id", params(condition, teamIds), ROW_MAPPER));
+        return merge(sorted, 0, Integer.MAX_VALUE);
+    }
+
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        Map<Integer, List<Long>> targets = targetShards(condition);
+        long limit = pageable.getOffset() + pageable.getPageSize();
+        List<List<MemberTeamDto>> sorted = scatter(targets, (shard, teamIds) -> shards.shard(shard).query(
+                SELECT + where(condition, teamIds) + " order by m.id limit :limit",
+                params(condition, teamIds).addValue("limit", limit), ROW_MAPPER));
+        List<MemberTeamDto> content = merge(sorted, pageable.getOffset(), pageable.getPageSize());
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(condition, targets));
+    }
+
+    public long searchCount(MemberSearchCondition condition) {
+        return count(condition, targetShards(condition));
+    }
+
+    private long count(MemberSearchCondition condition, Map<Integer, List<Long>> targets) {
+        long total = 0;
+        for (Long count : scatter(targets, (shard, teamIds) -> shards.shard(shard).queryForObject(
+                COUNT + where(condition, teamIds), params(condition, teamIds), Long.class))) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * 조건이 닿는 샤드 -> 그 샤드에 있는 팀 id (teamName 조건이 없으면 모든 샤드, 팀 id 는 null).
+     * 팀은 모든 샤드에 같으니 팀명은 0번 샤드에서 찾는다.
+     */
+    Map<Integer, List<Long>> targetShards(MemberSearchCondition condition) {
+        Map<Integer, List<Long>> targets = new TreeMap<>();
+        if (!StringUtils.hasText(condition.getTeamName())) {
+            for (int shard = 0; shard < shards.size(); shard++) {
+                targets.put(shard, null);
+            }
+            return targets;
+        }
+        List<Long> teamIds = shards.shard(0).queryForList("select id from team where name = :name",
+                new MapSqlParameterSource("name", condition.getTeamName()), Long.class);
+        for (Long teamId : teamIds) {
+            targets.computeIfAbsent(shards.shardOf(teamId), key -> new ArrayList<>()).add(teamId);
+        }
+        return targets; // 없는 팀이면 비어있다
+    }
+
+    private static String where(MemberSearchCondition condition, List<Long> teamIds) {
+        List<String> where = new ArrayList<>(4);
+        if (StringUtils.hasText(condition.getUsername())) {
+            where.add("m.username = :username");
+        }
+        if (teamIds != null) {
+            where.add("m.team_id in (:teamIds)");
+        }
+        if (condition.getAgeGoe() != null) {
+            where.add("m.age >= :ageGoe");
+        }
+        if (condition.getAgeLoe() != null) {
+            where.add("m.age <= :ageLoe");
+        }
+        return where.isEmpty() ? "" : " where " + String.join(" and ", where);
+    }
+
+    private static MapSqlParameterSource params(MemberSearchCondition condition, List<Long> teamIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        if (StringUtils.hasText(condition.getUsername())) {
+            params.addValue("username", condition.getUsername());
+        }
+        if (teamIds != null) {
+            params.addValue("teamIds", teamIds);
+        }
+        if (condition.getAgeGoe() != null) {
+            params.addValue("ageGoe", condition.getAgeGoe());
+        }
+        if (condition.getAgeLoe() != null) {
+            params.addValue("ageLoe", condition.getAgeLoe());
+        }
+        return params;
+    }
+
+    /**
+     * 샤드마다 가상 스레드에서 동시에, 샤드가 하나면 호출 스레드에서 바로.
+     * 한 샤드라도 실패하거나 member.shards.timeout 을 넘기면 나머지를 취소하고 예외.
+     * 취소는 interrupt 없이 (cancel(false)) 아직 시작 안한 쿼리만 막는다, 가상 스레드를 소켓 I/O 중에 interrupt 하면
+     * 샤드 풀의 커넥션이 깨진다. 이미 돌고 있는 쿼리는 남은 시간을 건 문장 타임아웃(QueryDeadline)에서 끝난다.
+     */
+    private <T> List<T> scatter(Map<Integer, List<Long>> targets, BiFunction<Integer, List<Long>, T> query) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        if (targets.size() == 1) {
+            Map.Entry<Integer, List<Long>> target = targets.entrySet().iterator().next();
+            return List.of(QueryDeadline.propagate(() -> query.apply(target.getKey(), target.getValue()), deadline).get());
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(targets.size());
+        targets.forEach((shard, teamIds) -> futures.add(CompletableFuture.supplyAsync(
+                QueryDeadline.propagate(() -> query.apply(shard, teamIds), deadline), executor)));
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+            return results;
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("sharded member search timed out", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("sharded member search interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(false)); // 끝난건 영향 없음, 돌고 있는건 문장 타임아웃까지
+        }
+    }
+
+    /**
+     * id 순으로 정렬된 샤드별 결과를 합쳐서 skip 건 건너뛰고 limit 건
+     */
+    static List<MemberTeamDto> merge(List<List<MemberTeamDto>> sorted, long skip, int limit) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Math.max(1, sorted.size()));
+        int total = 0;
+        for (List<MemberTeamDto> rows : sorted) {
+            if (!rows.isEmpty()) {
+                heads.add(new Cursor(rows));
+                total += rows.size();
+            }
+        }
+        List<MemberTeamDto> result = new ArrayList<>((int) Math.max(0, Math.min(limit, total - skip)));
+        long skipped = 0;
+        while (!heads.isEmpty() && result.size() < limit) {
+            Cursor head = heads.poll();
+            MemberTeamDto row = head.rows.get(head.index++);
+            if (skipped < skip) {
+                skipped++;
+            } else {
+                result.add(row);
+            }
+            if (head.index < head.rows.size()) {
+                heads.add(head);
+            }
+        }
+        return result;
+    }
+
+    private static final class Cursor implements Comparable<Cursor> {
+        private final List<MemberTeamDto> rows;
+        private int index;
+
+        Cursor(List<MemberTeamDto> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return Long.compare(rows.get(index).getMemberId(), other.rows.get(other.index).getMemberId());
+        }
+    }
+}
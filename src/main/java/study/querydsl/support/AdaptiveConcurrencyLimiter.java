@@ -0,0 +1,97 @@
+package study.querydsl.support;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 동시 처리 수 상한을 응답시간 기울기로 조절한다 (Netflix concurrency-limits 의 Gradient2 방식).
+ * 최근 응답시간(짧은 EMA)이 평소 응답시간(긴 EMA)보다 길어지면 줄을 서기 시작했다는 뜻이니 상한을 그 비율만큼 줄이고,
+ * 비슷하면 sqrt(limit) 만큼 여유를 두고 늘린다. 실패(타임아웃 등)는 바로 10% 줄인다.
+ * 상한이 반도 안 찼을때의 응답시간은 상한을 늘리는 근거로 쓰지 않는다 (한가할때 상한만 계속 커지지 않게).
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SHORT_ALPHA = 2.0 / (10 + 1);
+    private static final double LONG_ALPHA = 2.0 / (600 + 1);
+    private static final double TOLERANCE = 1.5; // 평소의 1.5배까지는 느려져도 줄이지 않는다
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile double limit; // guarded by this (쓰기)
+    private double shortRtt; // guarded by this
+    private double longRtt; // guarded by this
+
+    public AdaptiveConcurrencyLimiter(int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("limits must satisfy 1 <= min <= max: " + minLimit + ", " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = maxLimit; // 처음엔 막지 않고 응답시간이 늘어나면 줄인다
+    }
+
+    /**
+     * @return 들어온 뒤의 동시 처리 수 (release 에 넘긴다), 상한이 찼으면 -1
+     */
+    public int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.incrementAndGet();
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * @param inFlightAtStart tryAcquire 가 돌려준 값
+     * @param dropped 타임아웃/과부하로 실패한 요청이면 true
+     */
+    public void release(long rttNanos, int inFlightAtStart, boolean dropped) {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            if (dropped) {
+                limit = Math.max(minLimit, limit * BACKOFF);
+                return;
+            }
+            if (longRtt == 0) {
+                shortRtt = rttNanos;
+                longRtt = rttNanos;
+                return;
+            }
+            shortRtt += (rttNanos - shortRtt) * SHORT_ALPHA;
+            longRtt += (rttNanos - longRtt) * LONG_ALPHA;
+            // 부하가 빠진 뒤 긴 평균이 옛날 느린 값에 붙잡혀 있지 않게
+            if (longRtt / shortRtt > 2) {
+                longRtt *= 0.95;
+            }
+            if (inFlightAtStart < limit / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+            double newLimit = limit * gradient + Math.sqrt(limit);
+            newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+            limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        }
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public long rejected() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,49 @@
+package study.querydsl.support;
+
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import study.querydsl.cache.CacheStats;
+import study.querydsl.cache.MemberCountCache;
+import study.querydsl.cache.MemberSearchResultCache;
+import study.querydsl.repository.MemberSearchTemplates;
+
+/**
+ * /caches 에서 보던 캐시 통계를 actuator metrics 로도 노출한다 (member.cache.*, member.search.templates.*)
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheMetrics implements MeterBinder {
+
+    private final MemberCountCache memberCountCache;
+    private final MemberSearchResultCache memberSearchResultCache;
+    private final MemberSearchTemplates memberSearchTemplates;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bind(registry, "member-count", memberCountCache::stats);
+        bind(registry, "member-search-result", memberSearchResultCache::stats);
+        Gauge.builder("member.cache.bytes", memberSearchResultCache, MemberSearchResultCache::bytes)
+                .tag("cache", "member-search-result")
+                .register(registry);
+
+        FunctionCounter.builder("member.search.templates.hits", memberSearchTemplates, t -> t.stats().hits())
+                .register(registry);
+        FunctionCounter.builder("member.search.templates.saved", memberSearchTemplates,
+                t -> t.stats().savedNanos() / 1_000_000.0)
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    private static void bind(MeterRegistry registry, String cache, Supplier<CacheStats> stats) {
+        FunctionCounter.builder("member.cache.hits", stats, s -> s.get().hits()).tag("cache", cache).register(registry);
+        FunctionCounter.builder("member.cache.misses", stats, s -> s.get().misses()).tag("cache", cache).register(registry);
+        FunctionCounter.builder("member.cache.evictions", stats, s -> s.get().evictions()).tag("cache", cache).register(registry);
+        FunctionCounter.builder("member.cache.invalidations", stats, s -> s.get().invalidations()).tag("cache", cache).register(registry);
+        Gauge.builder("member.cache.size", stats, s -> s.get().size()).tag("cache", cache).register(registry);
+    }
+}
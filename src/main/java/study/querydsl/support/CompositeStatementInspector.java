@@ -0,0 +1,25 @@
+package study.querydsl.support;
+
+import java.util.List;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate 에는 StatementInspector 를 하나만 등록할 수 있어서 여러개를 순서대로 묶는다.
+ */
+public class CompositeStatementInspector implements StatementInspector {
+
+    private final List<StatementInspector> inspectors;
+
+    public CompositeStatementInspector(StatementInspector... inspectors) {
+        this.inspectors = List.of(inspectors);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        String result = sql;
+        for (StatementInspector inspector : inspectors) {
+            result = inspector.inspect(result);
+        }
+        return result;
+    }
+}
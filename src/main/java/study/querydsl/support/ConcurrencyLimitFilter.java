@@ -0,0 +1,78 @@
+package study.querydsl.support;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * 회원/팀 API(MemberController) 앞에서 동시 처리 수를 {@link AdaptiveConcurrencyLimiter} 로 제한한다.
+ * 상한이 차면 커넥션 풀에서 기다리게 두지 않고 바로 503 + Retry-After.
+ * 상한의 최대값은 기본으로 커넥션 풀 크기 (open-in-view 라 요청 하나가 커넥션 하나를 끝까지 잡는다).
+ * 503(쿼리 마감 초과 포함)으로 끝난 요청은 실패로 보고 상한을 줄인다.
+ */
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Pattern MEMBER_API = Pattern.compile("/v\\d+/(members|teams)(/.*)?");
+    // 분 단위로 도는 스트리밍 export/import 는 응답시간 기준을 흐리니 제외
+    private static final Pattern STREAMING = Pattern.compile("/v\\d+/members/(export|import)");
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final boolean enabled;
+
+    public ConcurrencyLimitFilter(MeterRegistry meterRegistry,
+            @Value("${member.concurrency.enabled:true}") boolean enabled,
+            @Value("${member.concurrency.min-limit:2}") int minLimit,
+            @Value("${member.concurrency.max-limit:${spring.datasource.hikari.maximum-pool-size:10}}") int maxLimit) {
+        this.limiter = new AdaptiveConcurrencyLimiter(minLimit, maxLimit);
+        this.enabled = enabled;
+        Gauge.builder("member.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                .description("Current adaptive concurrency limit for member endpoints")
+                .register(meterRegistry);
+        Gauge.builder("member.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+                .register(meterRegistry);
+        FunctionCounter.builder("member.concurrency.rejected", limiter, AdaptiveConcurrencyLimiter::rejected)
+                .description("Member requests shed with 503 by the concurrency limiter")
+                .register(meterRegistry);
+    }
+
+    public AdaptiveConcurrencyLimiter limiter() {
+        return limiter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !enabled || !MEMBER_API.matcher(path).matches() || STREAMING.matcher(path).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        int inFlight = limiter.tryAcquire();
+        if (inFlight < 0) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "too many concurrent member requests");
+            return;
+        }
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            filterChain.doFilter(request, response);
+            dropped = response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value();
+        } finally {
+            limiter.release(System.nanoTime() - start, inFlight, dropped);
+        }
+    }
+}
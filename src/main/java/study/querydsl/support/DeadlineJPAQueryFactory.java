@@ -0,0 +1,24 @@
+package study.querydsl.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+
+/**
+ * select/selectFrom/from 으로 만드는 쿼리마다 {@link QueryDeadline} 의 남은 시간을 타임아웃 힌트로 건다
+ */
+public class DeadlineJPAQueryFactory extends JPAQueryFactory {
+
+    public DeadlineJPAQueryFactory(EntityManager em) {
+        super(em);
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return withDeadline(super.query());
+    }
+
+    private static <T> JPAQuery<T> withDeadline(JPAQuery<T> query) {
+        return QueryDeadline.apply(query);
+    }
+}
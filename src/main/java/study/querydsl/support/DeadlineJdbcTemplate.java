@@ -0,0 +1,22 @@
+package study.querydsl.support;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 문장마다 {@link QueryDeadline} 의 남은 시간을 query timeout 으로 건다 (마감이 지났으면 보내지 않고 QueryTimeoutException)
+ */
+public class DeadlineJdbcTemplate extends JdbcTemplate {
+
+    public DeadlineJdbcTemplate(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    protected void applyStatementSettings(Statement stmt) throws SQLException {
+        super.applyStatementSettings(stmt);
+        QueryDeadline.apply(stmt);
+    }
+}
@@ -0,0 +1,33 @@
+package study.querydsl.support;
+
+import java.io.IOException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 요청 하나를 N+1 감지 범위로 잡는다 (open-in-view 로 컨트롤러에서 일어나는 지연로딩까지 포함)
+ */
+@Component
+@RequiredArgsConstructor
+public class LazyLoadDetectionFilter extends OncePerRequestFilter {
+
+    private final LazyLoadDetector lazyLoadDetector;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean started = lazyLoadDetector.begin(request.getMethod() + " " + request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (started) {
+                lazyLoadDetector.end();
+            }
+        }
+    }
+}
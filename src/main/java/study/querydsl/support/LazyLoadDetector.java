@@ -0,0 +1,158 @@
+package study.querydsl.support;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * N+1 감지기.
+ * 지연로딩 프록시 초기화(member.team 등)와 컬렉션 초기화(team.members)를 범위(요청, 없으면 트랜잭션) 단위로 세고
+ * 같은 엔티티/컬렉션이 threshold 번 이상 초기화되면 처음 초기화한 호출 위치와 함께 경고 로그를 남긴다.
+ * 요청 범위는 {@link LazyLoadDetectionFilter} 가 연다.
+ */
+@Slf4j
+@Component
+public class LazyLoadDetector {
+
+    private static final String APP_PACKAGE = "study.querydsl.";
+
+    private final int threshold;
+    private final ThreadLocal<Scope> current = new ThreadLocal<>();
+
+    public LazyLoadDetector(EntityManagerFactory emf,
+            @Value("${member.n-plus-one.threshold:5}") int threshold) {
+        this.threshold = threshold;
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.LOAD, (LoadEventListener) this::onLoad);
+        registry.appendListeners(EventType.INIT_COLLECTION, (InitializeCollectionEventListener) this::onInitializeCollection);
+    }
+
+    public record Offender(String role, int count, String callSite) {
+    }
+
+    /**
+     * 감지 범위 시작, 이미 열려있으면 바깥 범위를 그대로 쓴다
+     * @return 새로 열었으면 true (이 경우만 end() 호출)
+     */
+    public boolean begin(String label) {
+        if (current.get() != null) {
+            return false;
+        }
+        current.set(new Scope(label));
+        return true;
+    }
+
+    /**
+     * 감지 범위를 닫고 threshold 를 넘은 대상을 로그로 남긴다
+     */
+    public List<Offender> end() {
+        Scope scope = current.get();
+        current.remove();
+        return scope == null ? List.of() : report(scope);
+    }
+
+    private void onLoad(LoadEvent event, LoadEventListener.LoadType loadType) {
+        // 프록시 초기화만 (em.find, 쿼리 결과 로딩은 제외)
+        if (loadType == LoadEventListener.IMMEDIATE_LOAD) {
+            record(event.getEntityClassName());
+        }
+    }
+
+    private void onInitializeCollection(InitializeCollectionEvent event) {
+        record(event.getCollection().getRole());
+    }
+
+    private void record(String role) {
+        Scope scope = scope();
+        if (scope != null) {
+            scope.record(role);
+        }
+    }
+
+    // 요청 범위가 없으면 트랜잭션 단위로 세고 트랜잭션이 끝날때 보고
+    private Scope scope() {
+        Scope scope = current.get();
+        if (scope != null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return scope;
+        }
+        scope = (Scope) TransactionSynchronizationManager.getResource(this);
+        if (scope == null) {
+            Scope txScope = new Scope("transaction " + TransactionSynchronizationManager.getCurrentTransactionName());
+            TransactionSynchronizationManager.bindResource(this, txScope);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(LazyLoadDetector.this);
+                    report(txScope);
+                }
+            });
+            scope = txScope;
+        }
+        return scope;
+    }
+
+    private List<Offender> report(Scope scope) {
+        List<Offender> offenders = new ArrayList<>();
+        scope.loads.forEach((role, load) -> {
+            if (load.count >= threshold) {
+                offenders.add(new Offender(role, load.count, load.callSite));
+                log.warn("N+1 의심: {} 지연로딩 {}회, 범위={}, 최초 호출={}", role, load.count, scope.label, load.callSite);
+            }
+        });
+        return offenders;
+    }
+
+    // 감지기 자신과 프록시를 건너뛴 첫 애플리케이션 프레임
+    private static String callSite() {
+        return StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE).walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith(APP_PACKAGE))
+                .filter(f -> f.getDeclaringClass() != LazyLoadDetector.class && f.getDeclaringClass() != Scope.class)
+                .filter(f -> !f.getClassName().contains("$$") && !f.getClassName().contains("$HibernateProxy$"))
+                .findFirst()
+                .map(f -> f.getClassName() + "." + f.getMethodName() + ":" + f.getLineNumber())
+                .orElse("unknown"));
+    }
+
+    private static final class Scope {
+        private final String label;
+        private final Map<String, Load> loads = new LinkedHashMap<>();
+
+        private Scope(String label) {
+            this.label = label;
+        }
+
+        private void record(String role) {
+            Load load = loads.get(role);
+            if (load == null) {
+                loads.put(role, new Load(callSite()));
+            } else {
+                load.count++;
+            }
+        }
+    }
+
+    private static final class Load {
+        private final String callSite;
+        private int count = 1;
+
+        private Load(String callSite) {
+            this.callSite = callSite;
+        }
+    }
+}
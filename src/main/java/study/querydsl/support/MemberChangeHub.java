@@ -0,0 +1,146 @@
+package study.querydsl.support;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.MemberChangeListener.MemberRow;
+
+/**
+ * 커밋된 member/team 변경을 {@link MemberChangeListener} 들에게 나눠준다.
+ * 엔티티 변경은 Hibernate post-commit 이벤트로, 벌크 DML 은 {@link TableChangeTracker} 의 벌크 통지로 받는다.
+ * 리스너 예외는 로그만 남기고 다른 리스너/커밋에 영향을 주지 않는다.
+ */
+@Slf4j
+@Component
+public class MemberChangeHub {
+
+    private final List<MemberChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    public MemberChangeHub(EntityManagerFactory emf, TableChangeTracker tableChangeTracker) {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, new InsertListener());
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, new UpdateListener());
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, new DeleteListener());
+        tableChangeTracker.addBulkListener(table -> dispatch(listener -> listener.bulkChanged(table)));
+    }
+
+    public void addListener(MemberChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    private void dispatch(Consumer<MemberChangeListener> event) {
+        for (MemberChangeListener listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                log.warn("member change listener {} failed", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    private static boolean tracked(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return type == Member.class || type == Team.class;
+    }
+
+    private static MemberRow memberRow(Object id, Object[] state, EntityPersister persister) {
+        if (state == null) {
+            return null;
+        }
+        Object team = state[persister.getPropertyIndex("team")];
+        return new MemberRow((Long) id,
+                (String) state[persister.getPropertyIndex("username")],
+                (Integer) state[persister.getPropertyIndex("age")],
+                team == null ? null : ((Team) team).getId()); // 프록시여도 id 는 초기화 없이
+    }
+
+    private static String teamName(Object[] state, EntityPersister persister) {
+        return (String) state[persister.getPropertyIndex("name")];
+    }
+
+    private class InsertListener implements PostCommitInsertEventListener {
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            EntityPersister persister = event.getPersister();
+            if (event.getEntity() instanceof Member) {
+                MemberRow row = memberRow(event.getId(), event.getState(), persister);
+                dispatch(listener -> listener.memberInserted(row));
+            } else if (event.getEntity() instanceof Team) {
+                String name = teamName(event.getState(), persister);
+                dispatch(listener -> listener.teamSaved((Long) event.getId(), name));
+            }
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) {
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return tracked(persister);
+        }
+    }
+
+    private class UpdateListener implements PostCommitUpdateEventListener {
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            EntityPersister persister = event.getPersister();
+            if (event.getEntity() instanceof Member) {
+                MemberRow before = memberRow(event.getId(), event.getOldState(), persister);
+                MemberRow after = memberRow(event.getId(), event.getState(), persister);
+                dispatch(listener -> listener.memberUpdated(before, after));
+            } else if (event.getEntity() instanceof Team) {
+                String name = teamName(event.getState(), persister);
+                dispatch(listener -> listener.teamSaved((Long) event.getId(), name));
+            }
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return tracked(persister);
+        }
+    }
+
+    private class DeleteListener implements PostCommitDeleteEventListener {
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (event.getEntity() instanceof Member) {
+                MemberRow row = memberRow(event.getId(), event.getDeletedState(), event.getPersister());
+                MemberRow deleted = row != null ? row : new MemberRow((Long) event.getId(), null, 0, null);
+                dispatch(listener -> listener.memberDeleted(deleted));
+            } else if (event.getEntity() instanceof Team) {
+                dispatch(listener -> listener.teamDeleted((Long) event.getId()));
+            }
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return tracked(persister);
+        }
+    }
+}
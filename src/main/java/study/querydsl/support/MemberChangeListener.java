@@ -0,0 +1,38 @@
+package study.querydsl.support;
+
+/**
+ * 커밋된 member/team 변경 통지 ({@link MemberChangeHub}).
+ * 엔티티 단위 변경은 하나씩, 벌크 DML 처럼 어떤 행이 바뀌었는지 모르는 변경은 bulkChanged 로 온다 (전체 다시 읽기).
+ */
+public interface MemberChangeListener {
+
+    /**
+     * @param teamId 팀이 없으면 null
+     */
+    record MemberRow(long id, String username, int age, Long teamId) {
+    }
+
+    default void memberInserted(MemberRow row) {
+    }
+
+    /**
+     * @param before 변경 전 상태를 모르면 null (detached 엔티티 merge 등)
+     */
+    default void memberUpdated(MemberRow before, MemberRow after) {
+    }
+
+    default void memberDeleted(MemberRow row) {
+    }
+
+    default void teamSaved(long teamId, String name) {
+    }
+
+    default void teamDeleted(long teamId) {
+    }
+
+    /**
+     * @param table member 또는 team
+     */
+    default void bulkChanged(String table) {
+    }
+}
@@ -0,0 +1,32 @@
+package study.querydsl.support;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import study.querydsl.cache.MemberSearchKey;
+import study.querydsl.dto.MemberSearchCondition;
+
+/**
+ * 검색 응답 ETag = 기동 id + member/team 쓰기 버전(TableChangeTracker) + 검색조건 + 페이지.
+ * 버전은 메모리 값이라 DB 를 안보고 304 여부를 정할 수 있다.
+ * 버전은 조회 전에 읽으므로, 그 사이 커밋된 쓰기는 다음 폴링에서 새 ETag 로 잡힌다.
+ * 재기동하면 버전이 0 부터 다시 시작하니 기동 id 를 섞는다.
+ */
+@Component
+public class MemberSearchETag {
+
+    private final String bootId = UUID.randomUUID().toString();
+    private final TableChangeTracker tableChangeTracker;
+
+    public MemberSearchETag(TableChangeTracker tableChangeTracker) {
+        this.tableChangeTracker = tableChangeTracker;
+    }
+
+    public String of(String endpoint, MemberSearchCondition condition, Pageable pageable) {
+        String source = bootId + '|' + tableChangeTracker.version() + '|' + endpoint + '|'
+                + MemberSearchKey.of(condition) + '|' + pageable;
+        return DigestUtils.md5DigestAsHex(source.getBytes(StandardCharsets.UTF_8));
+    }
+}
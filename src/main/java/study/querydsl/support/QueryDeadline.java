@@ -0,0 +1,108 @@
+package study.querydsl.support;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.function.Supplier;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.dao.QueryTimeoutException;
+import com.querydsl.jpa.impl.AbstractJPAQuery;
+import jakarta.persistence.Query;
+
+/**
+ * 현재 스레드(요청)의 쿼리 마감시각.
+ * begin() ~ end() 사이에 만든 Querydsl 쿼리에 남은 시간을 jakarta.persistence.query.timeout 힌트로 건다 ({@link DeadlineJPAQueryFactory}).
+ * JDBC 로 직접 보내는 문장에는 setQueryTimeout 으로 건다 ({@link DeadlineJdbcTemplate}).
+ * JDBC 타임아웃은 초 단위고 Hibernate 는 밀리초 힌트를 반올림해서 0.5초 미만이면 타임아웃이 아예 없어지니, 남은 시간을 초로 올려서 건다.
+ * 마감이 이미 지났으면 쿼리를 보내지 않고 QueryTimeoutException.
+ */
+public class QueryDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    public static void begin(Duration timeout) {
+        DEADLINE.set(System.nanoTime() + timeout.toNanos());
+    }
+
+    public static void end() {
+        DEADLINE.remove();
+    }
+
+    /**
+     * @return 남은 시간, 마감이 없으면 null
+     */
+    public static Duration remaining() {
+        Long deadline = DEADLINE.get();
+        return deadline == null ? null : Duration.ofNanos(deadline - System.nanoTime());
+    }
+
+    public static <Q extends AbstractJPAQuery<?, Q>> Q apply(Q query) {
+        Integer timeout = timeoutHint();
+        return timeout == null ? query : query.setHint(SpecHints.HINT_SPEC_QUERY_TIMEOUT, timeout);
+    }
+
+    // 미리 직렬화한 JPQL 로 직접 만든 쿼리 (MemberSearchTemplates)
+    public static Query apply(Query query) {
+        Integer timeout = timeoutHint();
+        return timeout == null ? query : query.setHint(SpecHints.HINT_SPEC_QUERY_TIMEOUT, timeout);
+    }
+
+    // JDBC 문장, 이미 더 짧은 타임아웃(트랜잭션 타임아웃 등)이 걸려 있으면 그대로 둔다
+    public static void apply(Statement statement) throws SQLException {
+        Integer timeout = timeoutHint();
+        if (timeout == null) {
+            return;
+        }
+        int seconds = timeout / 1000;
+        if (statement.getQueryTimeout() == 0 || seconds < statement.getQueryTimeout()) {
+            statement.setQueryTimeout(seconds);
+        }
+    }
+
+    private static Integer timeoutHint() {
+        Duration remaining = remaining();
+        if (remaining == null) {
+            return null;
+        }
+        if (remaining.isNegative() || remaining.isZero()) {
+            throw new QueryTimeoutException("query deadline exceeded");
+        }
+        long seconds = (remaining.toMillis() + 999) / 1000;
+        return (int) Math.min(Integer.MAX_VALUE, seconds * 1000);
+    }
+
+    /**
+     * 다른 스레드에서 돌릴 작업에 현재 마감을 그대로 넘긴다 (병렬 페이지 검색의 내용/count 쿼리)
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        return withDeadline(task, DEADLINE.get());
+    }
+
+    /**
+     * propagate 와 같지만 현재 마감이 없거나 latest(System.nanoTime 기준)보다 늦으면 latest 로.
+     * 취소해도 돌고 있는 JDBC 문장은 멈추지 않으니, 다른 스레드의 쿼리가 타임아웃 힌트 없이 커넥션을 오래 잡지 않게 한다.
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> task, long latest) {
+        Long deadline = DEADLINE.get();
+        return withDeadline(task, deadline == null || deadline - latest > 0 ? latest : deadline);
+    }
+
+    private static <T> Supplier<T> withDeadline(Supplier<T> task, Long deadline) {
+        if (deadline == null) {
+            return task;
+        }
+        return () -> {
+            Long previous = DEADLINE.get();
+            DEADLINE.set(deadline);
+            try {
+                return task.get();
+            } finally {
+                if (previous == null) {
+                    DEADLINE.remove();
+                } else {
+                    DEADLINE.set(previous);
+                }
+            }
+        };
+    }
+}
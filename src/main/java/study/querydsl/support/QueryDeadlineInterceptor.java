@@ -0,0 +1,44 @@
+package study.querydsl.support;
+
+import java.time.Duration;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 핸들러의 {@link QueryTimeout} 으로 요청마다 {@link QueryDeadline} 을 건다
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryDeadlineInterceptor implements HandlerInterceptor {
+
+    private final Environment environment;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod method) {
+            QueryTimeout timeout = AnnotatedElementUtils.findMergedAnnotation(method.getMethod(), QueryTimeout.class);
+            if (timeout == null) {
+                timeout = AnnotatedElementUtils.findMergedAnnotation(method.getBeanType(), QueryTimeout.class);
+            }
+            if (timeout != null) {
+                Duration duration = DurationStyle.detectAndParse(environment.resolveRequiredPlaceholders(timeout.value()));
+                if (!duration.isZero() && !duration.isNegative()) {
+                    QueryDeadline.begin(duration);
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        QueryDeadline.end();
+    }
+}
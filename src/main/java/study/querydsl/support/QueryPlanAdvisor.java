@@ -0,0 +1,143 @@
+package study.querydsl.support;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.cache.MemberCountCache;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberRepository;
+
+/**
+ * 검색조건 16가지 모양별로 실제 나가는 SQL(search 내용 쿼리, searchPageComplex count 쿼리, 팀명 조회)을 모아서
+ * EXPLAIN 을 돌리고 인덱스를 못타고 테이블 전체를 읽는 쿼리를 표시한다.
+ * H2 의 실행계획 표기(tableScan)를 기준으로 판단한다.
+ */
+@Component
+public class QueryPlanAdvisor {
+
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\*\\s*(?:\\w+\\.)?(\\w+)\\.tableScan",
+            Pattern.CASE_INSENSITIVE);
+    private static final String[] CONDITIONS = {"username", "teamName", "ageGoe", "ageLoe"};
+
+    private final MemberRepository memberRepository;
+    private final MemberCountCache countCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public QueryPlanAdvisor(MemberRepository memberRepository, MemberCountCache countCache,
+            JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.memberRepository = memberRepository;
+        this.countCache = countCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public List<ShapePlan> explainAllShapes() {
+        String teamName = jdbcTemplate.query("select name from team fetch first 1 rows only",
+                rs -> rs.next() ? rs.getString(1) : "teamA");
+        List<ShapePlan> plans = new ArrayList<>();
+        for (int shape = 0; shape < 1 << CONDITIONS.length; shape++) {
+            MemberSearchCondition condition = sample(shape, teamName);
+            List<String> statements = captureSelects(condition);
+            List<StatementPlan> statementPlans = new ArrayList<>();
+            for (String sql : statements) {
+                statementPlans.add(explain(sql));
+            }
+            plans.add(new ShapePlan(shape, describe(shape), statementPlans));
+        }
+        return plans;
+    }
+
+    // 쓰기 트랜잭션이라 결과 캐시는 안타고, count 캐시는 비워서 count 쿼리까지 실제로 나가게 한다. 끝나면 롤백
+    private List<String> captureSelects(MemberSearchCondition condition) {
+        List<String> statements = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            countCache.invalidateAll();
+            statements.addAll(SqlCapture.capture(() -> {
+                memberRepository.search(condition);
+                memberRepository.searchPageComplex(condition, PageRequest.of(1, 1));
+            }));
+            status.setRollbackOnly();
+        });
+        statements.removeIf(sql -> !isSelect(sql));
+        return statements;
+    }
+
+    private StatementPlan explain(String sql) {
+        String plan = jdbcTemplate.execute((ConnectionCallback<String>) con -> {
+            try (PreparedStatement ps = con.prepareStatement("EXPLAIN " + sql)) {
+                // 실행계획만 보면 되니 파라미터는 전부 null
+                int parameters = ps.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    ps.setObject(i, null);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getString(1) : "";
+                }
+            } catch (SQLException e) {
+                return "EXPLAIN failed: " + e.getMessage();
+            }
+        });
+        Set<String> scanned = new LinkedHashSet<>();
+        Matcher matcher = TABLE_SCAN.matcher(plan);
+        while (matcher.find()) {
+            scanned.add(matcher.group(1).toLowerCase(Locale.ROOT));
+        }
+        return new StatementPlan(sql, plan, List.copyOf(scanned));
+    }
+
+    private static MemberSearchCondition sample(int shape, String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if ((shape & 1) != 0) condition.setUsername("member1");
+        if ((shape & 1 << 1) != 0) condition.setTeamName(teamName);
+        if ((shape & 1 << 2) != 0) condition.setAgeGoe(10);
+        if ((shape & 1 << 3) != 0) condition.setAgeLoe(40);
+        return condition;
+    }
+
+    private static String describe(int shape) {
+        StringJoiner joiner = new StringJoiner(",");
+        for (int i = 0; i < CONDITIONS.length; i++) {
+            if ((shape & 1 << i) != 0) {
+                joiner.add(CONDITIONS[i]);
+            }
+        }
+        return joiner.length() == 0 ? "(none)" : joiner.toString();
+    }
+
+    private static boolean isSelect(String sql) {
+        String body = sql.strip();
+        while (body.startsWith("/*")) {
+            int end = body.indexOf("*/");
+            body = end < 0 ? "" : body.substring(end + 2).strip();
+        }
+        return body.regionMatches(true, 0, "select", 0, 6);
+    }
+
+    public record ShapePlan(int shape, String conditions, List<StatementPlan> statements) {
+
+        /**
+         * 조건이 있는데도 테이블 전체를 읽는 쿼리가 있으면 true (조건 없는 전체 조회는 원래 스캔이라 제외)
+         */
+        public boolean tableScan() {
+            return shape != 0 && statements.stream().anyMatch(s -> !s.scannedTables().isEmpty());
+        }
+    }
+
+    public record StatementPlan(String sql, String plan, List<String> scannedTables) {
+    }
+}
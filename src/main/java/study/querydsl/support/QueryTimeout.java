@@ -0,0 +1,16 @@
+package study.querydsl.support;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 컨트롤러(클래스 또는 메소드) 요청 하나의 쿼리 마감 ({@link QueryDeadlineInterceptor}).
+ * 메소드에 붙은게 우선, 값은 "3s" 같은 기간이나 ${...} 설정, 0 이면 마감 없음.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryTimeout {
+    String value();
+}
@@ -0,0 +1,103 @@
+package study.querydsl.support;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 읽기전용 트랜잭션(@Transactional(readOnly = true))은 replica, 나머지는 primary 로 보낸다.
+ * 트랜잭션 시작 시점엔 readOnly 여부가 아직 안정해져 있으니 LazyConnectionDataSourceProxy 로 감싸서 써야 한다.
+ *
+ * replica 커넥션을 못얻으면 primary 로 돌리고, retryInterval 동안은 replica 를 건너뛴다.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long retryIntervalNanos;
+
+    private volatile long downSince; // 0 이면 정상
+    private final AtomicLong replicaConnections = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration retryInterval) {
+        this.primary = primary;
+        this.replica = replica;
+        this.retryIntervalNanos = retryInterval.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (useReplica()) {
+            try {
+                Connection connection = replica.getConnection();
+                replicaConnections.incrementAndGet();
+                recovered();
+                return connection;
+            } catch (SQLException e) {
+                markDown(e);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (useReplica()) {
+            try {
+                Connection connection = replica.getConnection(username, password);
+                replicaConnections.incrementAndGet();
+                recovered();
+                return connection;
+            } catch (SQLException e) {
+                markDown(e);
+            }
+        }
+        return primary.getConnection(username, password);
+    }
+
+    public boolean isReplicaHealthy() {
+        return downSince == 0;
+    }
+
+    public long replicaConnections() {
+        return replicaConnections.get();
+    }
+
+    public long fallbacks() {
+        return fallbacks.get();
+    }
+
+    private boolean useReplica() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        long down = downSince;
+        if (down != 0 && System.nanoTime() - down < retryIntervalNanos) {
+            fallbacks.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private void markDown(SQLException e) {
+        fallbacks.incrementAndGet();
+        if (downSince == 0) {
+            log.warn("replica unavailable, routing reads to primary: {}", e.getMessage());
+        }
+        downSince = System.nanoTime();
+    }
+
+    private void recovered() {
+        if (downSince != 0) {
+            downSince = 0;
+            log.info("replica recovered, routing reads to replica again");
+        }
+    }
+}
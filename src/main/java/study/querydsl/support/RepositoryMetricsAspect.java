@@ -0,0 +1,92 @@
+package study.querydsl.support;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.StringJoiner;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import study.querydsl.dto.MemberCursorPage;
+import study.querydsl.dto.MemberSearchCondition;
+
+/**
+ * MemberJpaRepository / MemberRepositoryImpl public 메소드 계측.
+ * member.repository (Timer) 와 member.repository.rows (반환 건수 분포) 를 class, method, shape(검색조건 모양) 태그로 남긴다.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(public * study.querydsl.repository.MemberJpaRepository.*(..))"
+            + " || execution(public * study.querydsl.repository.MemberRepositoryImpl.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        String className = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        String shape = shape(joinPoint.getArgs());
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            Object result = joinPoint.proceed();
+            long rows = rows(result);
+            if (rows >= 0) {
+                DistributionSummary.builder("member.repository.rows")
+                        .description("rows returned per repository call")
+                        .tags("class", className, "method", method, "shape", shape)
+                        .register(meterRegistry)
+                        .record(rows);
+            }
+            return result;
+        } catch (Throwable e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("member.repository")
+                    .description("repository method latency")
+                    .tags("class", className, "method", method, "shape", shape, "outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    // username+teamName 처럼 값이 있는 조건 이름만, 조건 인자가 없으면 none
+    static String shape(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof MemberSearchCondition condition) {
+                StringJoiner joiner = new StringJoiner("+");
+                if (StringUtils.hasText(condition.getUsername())) joiner.add("username");
+                if (StringUtils.hasText(condition.getTeamName())) joiner.add("teamName");
+                if (condition.getAgeGoe() != null) joiner.add("ageGoe");
+                if (condition.getAgeLoe() != null) joiner.add("ageLoe");
+                return joiner.length() == 0 ? "all" : joiner.toString();
+            }
+        }
+        return "none";
+    }
+
+    // 건수를 알 수 없는 반환(Stream, void 등)은 -1
+    private static long rows(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof MemberCursorPage page) {
+            return page.getContent().size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        return -1;
+    }
+}
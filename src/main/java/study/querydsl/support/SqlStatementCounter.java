@@ -0,0 +1,65 @@
+package study.querydsl.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * 현재 스레드에서 실행된 SQL 수를 센다.
+ * start() ~ stop() 사이만 세고, 요청 단위(SqlStatementMetricsFilter)나 테스트 단위로 쓴다.
+ * 다른 스레드에서 돌리는 작업은 propagate() 로 감싸면 같은 카운터에 더해진다 (병렬 페이지 검색의 내용/count 쿼리).
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<AtomicLong> COUNT = new ThreadLocal<>();
+
+    public static void start() {
+        COUNT.set(new AtomicLong());
+    }
+
+    /**
+     * @return start() 이후 SQL 수, 세고있지 않았으면 0
+     */
+    public static long stop() {
+        long count = current();
+        COUNT.remove();
+        return count;
+    }
+
+    public static long current() {
+        AtomicLong count = COUNT.get();
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * 다른 스레드에서 돌릴 작업이 현재 카운터에 세도록 넘긴다 (QueryDeadline.propagate 와 같은 방식)
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        AtomicLong count = COUNT.get();
+        if (count == null) {
+            return task;
+        }
+        return () -> {
+            AtomicLong previous = COUNT.get();
+            COUNT.set(count);
+            try {
+                return task.get();
+            } finally {
+                if (previous == null) {
+                    COUNT.remove();
+                } else {
+                    COUNT.set(previous);
+                }
+            }
+        };
+    }
+
+    @Override
+    public String inspect(String sql) {
+        AtomicLong count = COUNT.get();
+        if (count != null) {
+            count.incrementAndGet();
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,123 @@
+package study.querydsl.support;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * member / team 테이블 쓰기 감지.
+ * em.persist 든 querydsl 벌크 update/delete 든 실제로 나가는 DML 을 {@link TableWriteInspector} 가 보고 알려준다.
+ * 리스너는 쓰기 직후 한번, 트랜잭션이 끝난(커밋/롤백) 뒤 한번 더 호출된다.
+ * 그 사이에 다른 요청이 커밋 전 값을 캐시에 다시 넣을 수 있기 때문.
+ * 벌크 리스너는 엔티티 이벤트 없이 여러 행을 바꾸는 DML(querydsl update/delete, 네이티브 등)이 있었을때
+ * 트랜잭션이 끝난 뒤 한번만 호출된다. 여러 트랜잭션으로 나눠 커밋하는 작업은 deferBulk() 로 끝날때 한번으로 모은다.
+ */
+@Component
+public class TableChangeTracker {
+
+    public static final String MEMBER = "member";
+    public static final String TEAM = "team";
+
+    private final AtomicLong version = new AtomicLong();
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<String>> bulkListeners = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Set<String>> deferredBulk = new ThreadLocal<>();
+
+    /**
+     * member/team 에 쓰기가 있을때마다 증가하는 값
+     */
+    public long version() {
+        return version.get();
+    }
+
+    public void addListener(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    public void addBulkListener(Consumer<String> listener) {
+        bulkListeners.add(listener);
+    }
+
+    public void markChanged(String table) {
+        markChanged(table, false);
+    }
+
+    /**
+     * @param bulk 엔티티 하나가 아닌 임의의 행을 건드리는 DML
+     */
+    public void markChanged(String table, boolean bulk) {
+        fire(table);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (bulk) {
+                fireBulk(table);
+            }
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Boolean> pending = (Map<String, Boolean>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<String, Boolean> tables = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, tables);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TableChangeTracker.this);
+                    tables.forEach((changed, bulkChange) -> {
+                        fire(changed);
+                        if (bulkChange) {
+                            fireBulk(changed);
+                        }
+                    });
+                }
+            });
+            pending = tables;
+        }
+        pending.merge(table, bulk, Boolean::logicalOr);
+    }
+
+    /**
+     * task 안에서(같은 스레드) 커밋된 벌크 변경은 벌크 리스너에 바로 알리지 않고, task 가 끝난 뒤 테이블별로 한번만 알린다.
+     * 청크마다 커밋하는 MemberBulkService 가 청크마다 메모리 인덱스 전체를 다시 읽게 하지 않도록. 그동안 인덱스는 작업 전 상태다.
+     * 일반 리스너(캐시 무효화)는 지금처럼 쓰기마다 바로 호출된다.
+     */
+    public <T> T deferBulk(Supplier<T> task) {
+        if (deferredBulk.get() != null) {
+            return task.get(); // 바깥 deferBulk 가 끝날때 알린다
+        }
+        Set<String> tables = new LinkedHashSet<>();
+        deferredBulk.set(tables);
+        try {
+            return task.get();
+        } finally {
+            deferredBulk.remove();
+            tables.forEach(this::fireBulk); // 실패해도 앞에서 커밋된 변경이 있을 수 있다
+        }
+    }
+
+    private void fireBulk(String table) {
+        Set<String> deferred = deferredBulk.get();
+        if (deferred != null) {
+            deferred.add(table);
+            return;
+        }
+        for (Consumer<String> listener : bulkListeners) {
+            listener.accept(table);
+        }
+    }
+
+    private void fire(String table) {
+        version.incrementAndGet();
+        for (Consumer<String> listener : listeners) {
+            listener.accept(table);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package study.querydsl.support;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate 가 준비하는 모든 SQL 을 훑어서 member/team 에 대한 insert/update/delete/merge 를 {@link TableChangeTracker} 에 알린다.
+ * 벌크 연산은 엔티티 이벤트가 발생하지 않기 때문에 SQL 단계에서 잡는다.
+ * 엔티티 하나에 대한 DML(insert ... values, update/delete ... where id=?)이 아니면 벌크로 표시한다.
+ */
+public class TableWriteInspector implements StatementInspector {
+
+    // Hibernate 가 엔티티 단위로 만드는 DML, 벌크(HQL/querydsl)는 테이블 별칭(m1_0)이 붙고 조건이 id 하나가 아니다
+    private static final Pattern ROW_INSERT = Pattern.compile("(?is)insert\\s+into\\s+\\S+\\s*\\([^)]*\\)\\s*values\\s*\\(.*");
+    private static final Pattern ROW_UPDATE = Pattern.compile("(?is)update\\s+\\S+\\s+set\\s+.*\\s+where\\s+id\\s*=\\s*\\?\\s*;?\\s*");
+    private static final Pattern ROW_DELETE = Pattern.compile("(?is)delete\\s+from\\s+\\S+\\s+where\\s+id\\s*=\\s*\\?\\s*;?\\s*");
+
+    private final TableChangeTracker tracker;
+
+    public TableWriteInspector(TableChangeTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        String table = writtenTable(sql);
+        if (TableChangeTracker.MEMBER.equals(table) || TableChangeTracker.TEAM.equals(table)) {
+            tracker.markChanged(table, isBulk(sql));
+        }
+        return sql;
+    }
+
+    static boolean isBulk(String sql) {
+        String statement = sql.substring(skipComments(sql, 0));
+        return !(ROW_INSERT.matcher(statement).matches()
+                || ROW_UPDATE.matcher(statement).matches()
+                || ROW_DELETE.matcher(statement).matches());
+    }
+
+    /**
+     * @return DML 대상 테이블명(소문자), select 등 쓰기가 아니면 null
+     */
+    static String writtenTable(String sql) {
+        int i = skipComments(sql, 0);
+        String keyword = word(sql, i);
+        if (keyword == null) {
+            return null;
+        }
+        i = skipComments(sql, i + keyword.length());
+        switch (keyword.toLowerCase(Locale.ROOT)) {
+            case "update":
+                break;
+            case "insert":
+            case "delete":
+            case "merge":
+            case "truncate":
+                String next = word(sql, i); // into / from / table
+                if (next == null) {
+                    return null;
+                }
+                i = skipComments(sql, i + next.length());
+                break;
+            default:
+                return null;
+        }
+        String table = word(sql, i);
+        if (table == null) {
+            return null;
+        }
+        int dot = table.lastIndexOf('.'); // schema.table
+        return table.substring(dot + 1).replace("\"", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static int skipComments(String sql, int i) {
+        while (i < sql.length()) {
+            if (Character.isWhitespace(sql.charAt(i))) {
+                i++;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? sql.length() : end + 2;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static String word(String sql, int i) {
+        int start = i;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c) || c == '(' || c == ',' || c == ';') {
+                break;
+            }
+            i++;
+        }
+        return i > start ? sql.substring(start, i) : null;
+    }
+}
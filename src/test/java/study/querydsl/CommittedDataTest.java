@@ -0,0 +1,72 @@
+package study.querydsl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QBulkJobCheckpoint;
+import study.querydsl.entity.QHello;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.QTeam;
+import study.querydsl.entity.Team;
+
+/**
+ * 커밋된 데이터가 필요한 테스트의 공통 픽스처.
+ * 다른 스레드/트랜잭션에서 읽거나 커밋 후 통지를 봐야하면 @Transactional 롤백을 쓸 수 없으니
+ * tx 로 커밋하고, 끝나면 모든 테이블을 지운다 (테스트가 남긴 벌크 작업 체크포인트 포함).
+ * 지운 뒤 메모리 인덱스를 기다려야 하면 cleanUp 을 @AfterEach 와 함께 재정의하고 deleteAll 을 부른다.
+ */
+public abstract class CommittedDataTest {
+
+    @Autowired
+    protected EntityManager em;
+
+    @Autowired PlatformTransactionManager transactionManager;
+
+    protected TransactionTemplate tx;
+
+    @BeforeEach
+    public void beginCommittedData() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * teamA: member1(10), member2(20) / teamB: member3(30), member4(40)
+     * @param others 같이 저장할 회원 (팀 없는 회원 등)
+     */
+    protected void saveMembers(Member... others) {
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            for (Member other : others) {
+                em.persist(other);
+            }
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() throws InterruptedException {
+        deleteAll();
+    }
+
+    protected void deleteAll() {
+        tx.executeWithoutResult(status -> {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            queryFactory.delete(QBulkJobCheckpoint.bulkJobCheckpoint).execute();
+            queryFactory.delete(QMember.member).execute();
+            queryFactory.delete(QTeam.team).execute();
+            queryFactory.delete(QHello.hello).execute();
+        });
+    }
+}
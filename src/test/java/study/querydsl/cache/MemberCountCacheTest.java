@@ -0,0 +1,121 @@
+package study.querydsl.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+@SpringBootTest
+@Transactional
+class MemberCountCacheTest {
+
+    @Autowired
+    EntityManager em;
+    
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberCountCache memberCountCache;
+    @Autowired PlatformTransactionManager transactionManager;
+    
+    @Test
+    public void countCacheHit() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+        MemberSearchKey key = MemberSearchKey.of(condition);
+        // 쓰기 트랜잭션 밖(읽기 전용)에서만 캐시를 탄다
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readOnly.setReadOnly(true);
+        
+        try {
+            CacheStats before = memberCountCache.stats();
+            long first = readOnly.execute(status -> memberCountCache.get(key, () -> 1));
+            long second = readOnly.execute(status -> memberCountCache.get(key, () -> 2));
+            CacheStats after = memberCountCache.stats();
+            
+            assertThat(first).isEqualTo(1);
+            assertThat(second).isEqualTo(1);
+            assertThat(after.misses() - before.misses()).isEqualTo(1);
+            assertThat(after.hits() - before.hits()).isEqualTo(1);
+        } finally {
+            memberCountCache.invalidateAll(); // 같은 컨텍스트를 쓰는 다른 테스트에 남기지 않는다
+        }
+    }
+    
+    @Test
+    public void writeTransactionBypassesCache() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 1); // 페이지가 꽉 차야 count 쿼리가 나간다
+        
+        CacheStats before = memberCountCache.stats();
+        assertThat(memberRepository.searchPageComplex(condition, pageRequest).getTotalElements()).isEqualTo(4);
+        em.persist(new Member("member5", 50));
+        
+        // 캐시에서 답하면 auto flush 가 안돼서 방금 persist 한 member5 가 빠진다
+        assertThat(memberRepository.searchPageComplex(condition, pageRequest).getTotalElements()).isEqualTo(5);
+        CacheStats after = memberCountCache.stats();
+        assertThat(after.misses()).isEqualTo(before.misses());
+        assertThat(after.hits()).isEqualTo(before.hits());
+        assertThat(after.size()).isEqualTo(before.size());
+    }
+    
+    @Test
+    public void bulkDeleteInvalidates() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 1);
+        assertThat(memberRepository.searchPageComplex(condition, pageRequest).getTotalElements()).isEqualTo(4);
+        
+        new JPAQueryFactory(em)
+                .delete(QMember.member)
+                .where(QMember.member.age.gt(18))
+                .execute();
+        em.clear();
+        
+        assertThat(memberRepository.searchPageComplex(condition, pageRequest).getTotalElements()).isEqualTo(1);
+    }
+    
+    @Test
+    public void bulkUpdateInvalidates() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(30);
+        PageRequest pageRequest = PageRequest.of(0, 1);
+        assertThat(memberRepository.searchPageComplex(condition, pageRequest).getTotalElements()).isEqualTo(2);
+        
+        new JPAQueryFactory(em)
+                .update(QMember.member)
+                .set(QMember.member.age, QMember.member.age.multiply(2))
+                .execute();
+        em.clear();
+        
+        assertThat(memberRepository.searchPageComplex(condition, pageRequest).getTotalElements()).isEqualTo(3);
+    }
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+    }
+}
@@ -0,0 +1,86 @@
+package study.querydsl.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import study.querydsl.CommittedDataTest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QTeam;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+// 쓰기 트랜잭션 안에서는 캐시를 안타기 때문에 트랜잭션 없이 돌린다
+@SpringBootTest
+class MemberSearchResultCacheTest extends CommittedDataTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberSearchResultCache resultCache;
+    
+    @Test
+    public void searchHit() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        
+        CacheStats before = resultCache.stats();
+        List<MemberTeamDto> first = memberRepository.search(condition);
+        List<MemberTeamDto> second = memberRepository.search(condition);
+        CacheStats after = resultCache.stats();
+        
+        assertThat(second).isEqualTo(first);
+        assertThat(after.misses() - before.misses()).isEqualTo(1);
+        assertThat(after.hits() - before.hits()).isEqualTo(1);
+        assertThat(resultCache.bytes()).isPositive();
+    }
+    
+    @Test
+    public void callerChangesDoNotLeakIntoCache() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        
+        memberRepository.search(condition).get(0).setUsername("changed"); // 캐시에 넣은 결과
+        memberRepository.search(condition).get(0).setUsername("changed"); // 캐시에서 꺼낸 결과
+        memberRepository.searchPageComplex(condition, PageRequest.of(0, 2)).getContent().get(0).setUsername("changed");
+        
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("member1", "member2");
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(0, 2)).getContent())
+                .extracting("username").containsExactly("member1", "member2");
+    }
+    
+    @Test
+    public void pageKeyedByPageable() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(0, 2)).getContent())
+                .extracting("username").containsExactly("member1", "member2");
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(1, 2)).getContent())
+                .extracting("username").containsExactly("member3", "member4");
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(1, 2)).getTotalElements())
+                .isEqualTo(4);
+    }
+    
+    @Test
+    public void writeInvalidates() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        assertThat(memberRepository.search(condition)).hasSize(2);
+        
+        tx.executeWithoutResult(status -> {
+            Team teamA = new JPAQueryFactory(em).selectFrom(QTeam.team).where(QTeam.team.name.eq("teamA")).fetchOne();
+            em.persist(new Member("member5", 50, teamA));
+        });
+        
+        assertThat(memberRepository.search(condition)).hasSize(3);
+    }
+
+    @BeforeEach
+    public void before() {
+        saveMembers();
+    }
+}
@@ -0,0 +1,147 @@
+package study.querydsl.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import study.querydsl.CommittedDataTest;
+import study.querydsl.dto.MemberCursorPage;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.QTeam;
+import study.querydsl.repository.MemberJdbcSearch;
+import study.querydsl.repository.MemberRepository;
+
+// 커밋된 변경만 반영되는 엔진이라 @Transactional 롤백 대신 직접 지운다
+@SpringBootTest(properties = {
+        "member.search.engine=memory",
+        "spring.datasource.url=jdbc:h2:mem:memory-engine"})
+class InMemoryMemberSearchTest extends CommittedDataTest {
+
+    @Autowired InMemoryMemberSearch inMemoryMemberSearch;
+    @Autowired MemberJdbcSearch memberJdbcSearch;
+    @Autowired MemberRepository memberRepository;
+    
+    @Test
+    public void sameResultAsDatabaseForAllShapes() {
+        String[] usernames = {"member3", "nobody"};
+        String[] teamNames = {"teamB", "teamC"};
+        for (String username : usernames) {
+            for (String teamName : teamNames) {
+                for (int shape = 0; shape < 16; shape++) {
+                    MemberSearchCondition condition = new MemberSearchCondition();
+                    if ((shape & 1) != 0) condition.setUsername(username);
+                    if ((shape & 2) != 0) condition.setTeamName(teamName);
+                    if ((shape & 4) != 0) condition.setAgeGoe(20);
+                    if ((shape & 8) != 0) condition.setAgeLoe(35);
+                    
+                    assertThat(inMemoryMemberSearch.search(condition))
+                            .as("shape %d %s %s", shape, username, teamName)
+                            .containsExactlyInAnyOrderElementsOf(memberJdbcSearch.search(condition));
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void pageAndCursor() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(1, 2));
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getContent()).extracting("username").containsExactly("member4", "member5");
+        
+        MemberCursorPage first = memberRepository.searchByCursor(condition, null, 3);
+        assertThat(first.getContent()).extracting("username").containsExactly("member2", "member3", "member4");
+        MemberCursorPage second = memberRepository.searchByCursor(condition,
+                MemberCursorPage.decode(first.getNextCursor()), 3);
+        assertThat(second.getContent()).extracting("username").containsExactly("member5");
+        assertThat(second.isHasNext()).isFalse();
+    }
+    
+    @Test
+    public void appliesCommittedEntityChanges() {
+        long loads = inMemoryMemberSearch.stats().loads();
+        
+        tx.executeWithoutResult(status -> {
+            Member member1 = member("member1");
+            member1.setAge(99);
+            em.remove(member("member2"));
+            new JPAQueryFactory(em).selectFrom(QTeam.team).where(QTeam.team.name.eq("teamA")).fetchOne()
+                    .setName("teamZ");
+            em.persist(new Member("member6", 60, member("member3").getTeam()));
+        });
+        
+        MemberSearchCondition teamZ = new MemberSearchCondition();
+        teamZ.setTeamName("teamZ");
+        assertThat(inMemoryMemberSearch.search(teamZ)).extracting("username", "age")
+                .containsExactly(tuple("member1", 99));
+        MemberSearchCondition teamB = new MemberSearchCondition();
+        teamB.setTeamName("teamB");
+        assertThat(inMemoryMemberSearch.search(teamB)).extracting("username")
+                .containsExactly("member3", "member4", "member6");
+        // 엔티티 변경은 다시 적재하지 않는다
+        assertThat(inMemoryMemberSearch.stats().loads()).isEqualTo(loads);
+    }
+    
+    @Test
+    public void reloadsAfterBulkChange() throws InterruptedException {
+        long loads = inMemoryMemberSearch.stats().loads();
+        
+        tx.executeWithoutResult(status -> new JPAQueryFactory(em)
+                .update(QMember.member)
+                .set(QMember.member.age, QMember.member.age.add(1))
+                .where(QMember.member.age.lt(28))
+                .execute());
+        awaitLoads(loads + 1);
+        
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(21);
+        assertThat(inMemoryMemberSearch.search(condition)).extracting("age").containsExactly(11, 21);
+    }
+    
+    @Test
+    public void reportsHeapPerMillionMembers() {
+        MemberColumnStats stats = inMemoryMemberSearch.stats();
+        
+        assertThat(stats.members()).isEqualTo(5);
+        assertThat(stats.teams()).isEqualTo(2);
+        assertThat(stats.bytesPerMillionMembers()).isPositive();
+    }
+    
+    private Member member(String username) {
+        return new JPAQueryFactory(em).selectFrom(QMember.member).where(QMember.member.username.eq(username)).fetchOne();
+    }
+    
+    // 엔티티 변경은 커밋 스레드에서 바로, 벌크 변경 후 재적재는 별도 스레드라 기다린다
+    private void awaitLoads(long loads) throws InterruptedException {
+        for (int i = 0; i < 500 && !(inMemoryMemberSearch.stats().loads() >= loads && inMemoryMemberSearch.available()); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(inMemoryMemberSearch.available()).isTrue();
+    }
+
+    @BeforeEach
+    public void before() throws InterruptedException {
+        saveMembers(new Member("member5", 50)); // 팀 없음
+        awaitLoads(0);
+    }
+
+    @Override
+    @AfterEach
+    public void cleanUp() throws InterruptedException {
+        long loads = inMemoryMemberSearch.stats().loads();
+        deleteAll();
+        awaitLoads(loads + 1);
+        assertThat(inMemoryMemberSearch.stats().members()).isZero();
+    }
+}
@@ -0,0 +1,134 @@
+package study.querydsl.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import study.querydsl.CommittedDataTest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.QTeam;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJdbcSearch;
+import study.querydsl.support.MemberChangeListener.MemberRow;
+
+// 커밋된 변경만 반영되는 인덱스라 @Transactional 롤백 대신 직접 지운다
+@SpringBootTest(properties = {
+        "member.count-index.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:count-index"})
+class MemberCountIndexTest extends CommittedDataTest {
+
+    @Autowired MemberCountIndex memberCountIndex;
+    @Autowired MemberJdbcSearch memberJdbcSearch;
+    
+    @Test
+    public void sameCountAsDatabase() {
+        for (String teamName : new String[] {null, "teamA", "teamB", "teamC"}) {
+            for (Integer ageGoe : new Integer[] {null, 20, 35}) {
+                for (Integer ageLoe : new Integer[] {null, 30, 10}) {
+                    MemberSearchCondition condition = new MemberSearchCondition();
+                    condition.setTeamName(teamName);
+                    condition.setAgeGoe(ageGoe);
+                    condition.setAgeLoe(ageLoe);
+                    
+                    assertThat(memberCountIndex.supports(condition)).isTrue();
+                    assertThat(memberCountIndex.count(condition))
+                            .as("%s %s %s", teamName, ageGoe, ageLoe)
+                            .isEqualTo(memberJdbcSearch.search(condition).size());
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void usernameFallsBackToSql() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+        
+        assertThat(memberCountIndex.supports(condition)).isFalse();
+    }
+    
+    @Test
+    public void appliesCommittedEntityChanges() {
+        long rebuilds = memberCountIndex.rebuilds();
+        tx.executeWithoutResult(status -> {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            Member member1 = queryFactory.selectFrom(QMember.member).where(QMember.member.username.eq("member1")).fetchOne();
+            Team teamB = queryFactory.selectFrom(QTeam.team).where(QTeam.team.name.eq("teamB")).fetchOne();
+            member1.setAge(45);
+            member1.setTeam(teamB);
+            em.remove(queryFactory.selectFrom(QMember.member).where(QMember.member.username.eq("member4")).fetchOne());
+        });
+        
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(35);
+        assertThat(memberCountIndex.count(condition)).isEqualTo(1); // member1(45), member4 삭제
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(null);
+        assertThat(memberCountIndex.count(condition)).isEqualTo(1); // member2
+        assertThat(memberCountIndex.rebuilds()).isEqualTo(rebuilds);
+    }
+    
+    @Test
+    public void concurrentUpdatesWithSameBeforeState() {
+        JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+        Member member1 = queryFactory.selectFrom(QMember.member).where(QMember.member.username.eq("member1")).fetchOne();
+        Long teamAId = member1.getTeam().getId();
+        Long teamBId = queryFactory.select(QTeam.team.id).from(QTeam.team).where(QTeam.team.name.eq("teamB")).fetchOne();
+
+        // 같은 행(member1, 10, teamA)을 읽은 두 트랜잭션이 각자 고쳐서 커밋한 통지
+        MemberRow loaded = new MemberRow(member1.getId(), "member1", 10, teamAId);
+        memberCountIndex.memberUpdated(loaded, new MemberRow(member1.getId(), "member1", 30, teamAId));
+        memberCountIndex.memberUpdated(loaded, new MemberRow(member1.getId(), "member1", 45, teamBId));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        assertThat(memberCountIndex.count(condition)).isEqualTo(1); // member2
+        condition.setTeamName(null);
+        condition.setAgeGoe(30);
+        condition.setAgeLoe(30);
+        assertThat(memberCountIndex.count(condition)).isEqualTo(1); // member3
+    }
+
+    @Test
+    public void overflowIdRebuildsIndex() throws InterruptedException {
+        long rebuilds = memberCountIndex.rebuilds();
+        
+        // int 범위를 넘는 id 의 커밋 통지 (실제 DB 에는 없으니 다시 만들면 다시 쓸 수 있다)
+        // 꺼졌다가 (다시 만드는게 빨리 끝날 수 있어서 supports() 는 보지 않는다) 다시 만들어진다
+        memberCountIndex.memberInserted(new MemberRow(Integer.MAX_VALUE + 1L, "member6", 60, null));
+        
+        awaitRebuilds(rebuilds + 1);
+        assertThat(memberCountIndex.rebuilds()).isEqualTo(rebuilds + 1);
+        assertThat(memberCountIndex.count(new MemberSearchCondition())).isEqualTo(5);
+    }
+    
+    // 벌크 변경 후 다시 만드는 중에는 supports() 가 false (SQL 로)
+    private void awaitRebuilds(long rebuilds) throws InterruptedException {
+        MemberSearchCondition any = new MemberSearchCondition();
+        for (int i = 0; i < 500 && !(memberCountIndex.rebuilds() >= rebuilds && memberCountIndex.supports(any)); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(memberCountIndex.supports(any)).isTrue();
+    }
+
+    @BeforeEach
+    public void before() throws InterruptedException {
+        saveMembers(new Member("member5", 50)); // 팀 없음
+        awaitRebuilds(0);
+    }
+
+    @Override
+    @AfterEach
+    public void cleanUp() throws InterruptedException {
+        long rebuilds = memberCountIndex.rebuilds();
+        deleteAll();
+        awaitRebuilds(rebuilds + 1);
+        assertThat(memberCountIndex.count(new MemberSearchCondition())).isZero();
+    }
+}
@@ -0,0 +1,117 @@
+package study.querydsl.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import study.querydsl.CommittedDataTest;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.QTeam;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+// 커밋된 변경만 반영되는 요약이라 @Transactional 롤백 대신 직접 지운다
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:team-stats")
+class TeamStatsSummaryTest extends CommittedDataTest {
+
+    @Autowired TeamStatsSummary teamStatsSummary;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired DataSource dataSource;
+    
+    @Test
+    public void sameAsGroupBy() {
+        List<TeamStatsDto> stats = teamStatsSummary.stats();
+        
+        assertThat(stats).isEqualTo(memberJpaRepository.teamStats());
+        assertThat(stats).extracting(TeamStatsDto::teamName).containsExactly("teamA", "teamB"); // 팀 없는 member5 는 빠진다
+        TeamStatsDto teamA = stats.get(0);
+        assertThat(teamA.count()).isEqualTo(2);
+        assertThat(teamA.ageAvg()).isEqualTo(15); // 10 + 20 / 2
+        assertThat(teamA.ageMin()).isEqualTo(10);
+        assertThat(teamA.ageMax()).isEqualTo(20);
+        assertThat(stats.get(1).ageAvg()).isEqualTo(35); // 30 + 40 / 2
+    }
+    
+    @Test
+    public void appliesCommittedEntityChanges() {
+        long rebuilds = teamStatsSummary.rebuilds();
+        tx.executeWithoutResult(status -> {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            Team teamB = queryFactory.selectFrom(QTeam.team).where(QTeam.team.name.eq("teamB")).fetchOne();
+            Member member1 = queryFactory.selectFrom(QMember.member).where(QMember.member.username.eq("member1")).fetchOne();
+            member1.setTeam(teamB); // teamA 최소값이 빠진다
+            member1.setAge(45);
+            em.remove(queryFactory.selectFrom(QMember.member).where(QMember.member.username.eq("member4")).fetchOne());
+            em.persist(new Member("member6", 5, teamB));
+        });
+        
+        List<TeamStatsDto> stats = teamStatsSummary.stats();
+        assertThat(stats).isEqualTo(memberJpaRepository.teamStats());
+        assertThat(stats.get(0).ageMin()).isEqualTo(20);
+        assertThat(stats.get(1).count()).isEqualTo(3); // member3, member1, member6
+        assertThat(stats.get(1).ageMin()).isEqualTo(5);
+        assertThat(stats.get(1).ageMax()).isEqualTo(45);
+        assertThat(teamStatsSummary.reconcile()).isZero();
+        assertThat(teamStatsSummary.rebuilds()).isEqualTo(rebuilds);
+    }
+    
+    @Test
+    public void rebuildsAfterBulkUpdate() throws InterruptedException {
+        long rebuilds = teamStatsSummary.rebuilds();
+        tx.executeWithoutResult(status -> new JPAQueryFactory(em)
+                .update(QMember.member)
+                .set(QMember.member.age, QMember.member.age.add(1))
+                .execute());
+        
+        awaitRebuilds(rebuilds + 1);
+        assertThat(teamStatsSummary.stats()).isEqualTo(memberJpaRepository.teamStats());
+        assertThat(teamStatsSummary.stats().get(0).ageSum()).isEqualTo(32);
+    }
+    
+    @Test
+    public void reconcileRepairsDrift() throws InterruptedException {
+        // Hibernate 를 거치지 않는 변경은 통지가 없다
+        new JdbcTemplate(dataSource).update("update member set age = 99 where username = 'member1'");
+        assertThat(teamStatsSummary.stats()).isNotEqualTo(memberJpaRepository.teamStats());
+        long rebuilds = teamStatsSummary.rebuilds();
+        long mismatches = teamStatsSummary.mismatches();
+        
+        assertThat(teamStatsSummary.reconcile()).isEqualTo(1);
+        
+        awaitRebuilds(rebuilds + 1);
+        assertThat(teamStatsSummary.mismatches()).isEqualTo(mismatches + 1);
+        assertThat(teamStatsSummary.stats()).isEqualTo(memberJpaRepository.teamStats());
+        assertThat(teamStatsSummary.reconcile()).isZero();
+    }
+    
+    // 다시 만드는 중에는 GROUP BY 로 답하니 available 이 될때까지 기다린다
+    private void awaitRebuilds(long rebuilds) throws InterruptedException {
+        for (int i = 0; i < 500 && !(teamStatsSummary.rebuilds() >= rebuilds && teamStatsSummary.available()); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(teamStatsSummary.available()).isTrue();
+    }
+
+    @BeforeEach
+    public void before() throws InterruptedException {
+        saveMembers(new Member("member5", 50)); // 팀 없음
+        awaitRebuilds(0);
+    }
+
+    @Override
+    @AfterEach
+    public void cleanUp() throws InterruptedException {
+        long rebuilds = teamStatsSummary.rebuilds();
+        deleteAll();
+        awaitRebuilds(rebuilds + 1);
+        assertThat(teamStatsSummary.stats()).isEmpty();
+    }
+}
@@ -0,0 +1,107 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.EntityManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.SqlCapture;
+
+@SpringBootTest(properties = {
+        "member.in-list.max-size=4",
+        "spring.datasource.url=jdbc:h2:mem:entity-id-loader"})
+@Transactional
+class EntityIdLoaderTest {
+
+    @Autowired
+    EntityManager em;
+    
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired TeamJpaRepository teamJpaRepository;
+    
+    List<Member> members = new ArrayList<>();
+    Team teamA;
+    Team teamB;
+    
+    @Test
+    public void requestOrder() {
+        em.clear();
+        List<Long> ids = List.of(id(4), id(0), -1L, id(2), id(0)); // 없는 id 는 빠지고, 중복은 한번만
+        
+        List<Member> result = memberJpaRepository.findAllByIds(ids);
+        
+        assertThat(result).extracting("username").containsExactly("member5", "member1", "member3");
+    }
+    
+    @Test
+    public void managedEntitiesWithoutQuery() {
+        List<String> sql = SqlCapture.capture(() -> {
+            List<Member> result = memberJpaRepository.findAllByIds(List.of(id(1), id(0)));
+            assertThat(result).containsExactly(members.get(1), members.get(0));
+        });
+        
+        assertThat(sql).isEmpty();
+    }
+    
+    @Test
+    public void paddedInListChunks() {
+        em.clear();
+        memberJpaRepository.findById(id(0)); // 이미 있는 1개는 빼고 5개만 읽는다
+        
+        List<String> sql = SqlCapture.capture(() -> {
+            List<Member> result = memberJpaRepository.findAllByIds(List.of(id(5), id(4), id(3), id(2), id(1), id(0)));
+            assertThat(result).extracting("username")
+                    .containsExactly("member6", "member5", "member4", "member3", "member2", "member1");
+        });
+        
+        assertThat(sql).hasSize(2); // 4 + 1
+        assertThat(sql).extracting(EntityIdLoaderTest::inListSize).containsExactly(4L, 1L);
+    }
+    
+    @Test
+    public void paddedToPowerOfTwo() {
+        assertThat(EntityIdLoader.padded(List.of(1L))).containsExactly(1L);
+        assertThat(EntityIdLoader.padded(List.of(1L, 2L, 3L))).containsExactly(1L, 2L, 3L, 3L);
+        assertThat(EntityIdLoader.padded(List.of(1L, 2L, 3L, 4L, 5L))).hasSize(8).endsWith(5L, 5L, 5L, 5L);
+    }
+    
+    @Test
+    public void teams() {
+        em.clear();
+        
+        List<Team> result = teamJpaRepository.findAllByIds(Arrays.asList(teamB.getId(), null, teamA.getId()));
+        
+        assertThat(result).extracting("name").containsExactly("teamB", "teamA");
+    }
+    
+    private Long id(int index) {
+        return members.get(index).getId();
+    }
+    
+    // 파라미터는 id 목록뿐이다, 앞에 붙는 JPQL 주석(use_sql_comments)의 ?1 은 뺀다
+    private static long inListSize(String sql) {
+        return sql.substring(sql.lastIndexOf("*/") + 1).chars().filter(c -> c == '?').count();
+    }
+
+    @BeforeEach
+    public void before() {
+        teamA = new Team("teamA");
+        teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        
+        for (int i = 1; i <= 6; i++) {
+            Member member = new Member("member" + i, i * 10, i % 2 == 0 ? teamB : teamA);
+            em.persist(member);
+            members.add(member);
+        }
+        em.flush();
+    }
+}
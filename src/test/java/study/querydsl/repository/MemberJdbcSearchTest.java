@@ -0,0 +1,106 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.MemberColumns;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+// 별도 컨텍스트라 DB 도 따로 (같은 메모리 DB 면 ddl-auto 가 다른 컨텍스트의 시퀀스를 초기화한다)
+@SpringBootTest(properties = {
+        "member.search.engine=jdbc",
+        "spring.datasource.url=jdbc:h2:mem:jdbc-search"})
+@Transactional
+class MemberJdbcSearchTest {
+
+    @Autowired
+    EntityManager em;
+    
+    @Autowired MemberJdbcSearch memberJdbcSearch;
+    @Autowired MemberSearchTemplates memberSearchTemplates;
+    @Autowired MemberRepository memberRepository;
+    @Autowired ObjectMapper objectMapper;
+    
+    @Test
+    public void sameResultAsJpaForAllShapes() {
+        for (int shape = 0; shape < MemberSearchTemplates.SHAPES; shape++) {
+            MemberSearchCondition condition = condition(shape);
+            
+            List<MemberTeamDto> jdbc = memberJdbcSearch.search(condition);
+            List<MemberTeamDto> jpa = memberSearchTemplates.search(em, condition);
+            
+            assertThat(jdbc).as(memberJdbcSearch.sql(condition)).containsExactlyInAnyOrderElementsOf(jpa);
+        }
+    }
+    
+    @Test
+    public void repositoryUsesJdbcEngine() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(35);
+        
+        List<MemberTeamDto> result = memberRepository.search(condition);
+        
+        assertThat(result).extracting("username").containsExactly("member4");
+        assertThat(result.get(0).getTeamName()).isEqualTo("teamB");
+    }
+    
+    @Test
+    public void searchColumns() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        
+        MemberColumns columns = memberJdbcSearch.searchColumns(condition);
+        
+        assertThat(columns.size()).isEqualTo(4);
+        assertThat(columns.teamCount()).isEqualTo(2);
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(columns));
+        assertThat(json.get("size").asInt()).isEqualTo(4);
+        assertThat(json.get("username")).extracting(JsonNode::asText)
+                .containsExactlyInAnyOrder("member2", "member3", "member4", "member5");
+        // 팀명은 사전에 한번씩만, 팀 없는 member5 는 -1
+        assertThat(json.get("teams").get("name")).extracting(JsonNode::asText).containsExactlyInAnyOrder("teamA", "teamB");
+        assertThat(json.get("team")).extracting(JsonNode::asInt).containsOnly(-1, 0, 1).hasSize(4);
+    }
+    
+    @Test
+    public void unknownTeam() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamC");
+        
+        assertThat(memberJdbcSearch.search(condition)).isEmpty();
+    }
+    
+    private static MemberSearchCondition condition(int shape) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if ((shape & MemberSearchTemplates.USERNAME) != 0) condition.setUsername("member3");
+        if ((shape & MemberSearchTemplates.TEAM_NAME) != 0) condition.setTeamName("teamB");
+        if ((shape & MemberSearchTemplates.AGE_GOE) != 0) condition.setAgeGoe(20);
+        if ((shape & MemberSearchTemplates.AGE_LOE) != 0) condition.setAgeLoe(35);
+        return condition;
+    }
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50)); // 팀 없음
+    }
+}
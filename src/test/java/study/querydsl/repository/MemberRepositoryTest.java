@@ -2,14 +2,17 @@ package study.querydsl.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import java.util.List;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
 import jakarta.persistence.EntityManager;
+import study.querydsl.dto.MemberCursorPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
@@ -51,6 +54,58 @@ public class MemberRepositoryTest {
         
     }
 
+    @Test
+    public void searchPageComplexByTeamNameTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(0, 1));
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamB");
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        
+        condition.setTeamName("teamC"); // 없는 팀
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(0, 1)).getTotalElements()).isZero();
+        assertThat(memberRepository.search(condition)).isEmpty();
+    }
+    
+    @Test
+    public void searchSliceTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        
+        Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, PageRequest.of(0, 3));
+        assertThat(first.getContent()).extracting("username").containsExactly("member1","member2","member3");
+        assertThat(first.hasNext()).isTrue();
+        
+        Slice<MemberTeamDto> second = memberRepository.searchSlice(condition, PageRequest.of(1, 3));
+        assertThat(second.getContent()).extracting("username").containsExactly("member4");
+        assertThat(second.hasNext()).isFalse();
+    }
+    
+    @Test
+    public void searchByCursorTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        
+        MemberCursorPage first = memberRepository.searchByCursor(condition, null, 3);
+        assertThat(first.getContent()).extracting("username").containsExactly("member1","member2","member3");
+        assertThat(first.isHasNext()).isTrue();
+        
+        Long afterId = MemberCursorPage.decode(first.getNextCursor());
+        MemberCursorPage second = memberRepository.searchByCursor(condition, afterId, 3);
+        assertThat(second.getContent()).extracting("username").containsExactly("member4");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void searchStreamTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        
+        try (Stream<MemberTeamDto> stream = memberRepository.searchStream(condition, 2)) {
+            assertThat(stream).extracting("username").containsExactly("member2","member3","member4");
+        }
+    }
+
     @BeforeEach
     public void before() {
         Team teamA = new Team("teamA");
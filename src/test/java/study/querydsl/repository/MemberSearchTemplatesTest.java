@@ -0,0 +1,73 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@SpringBootTest
+@Transactional
+class MemberSearchTemplatesTest {
+
+    @Autowired
+    EntityManager em;
+    
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired MemberSearchTemplates memberSearchTemplates;
+    
+    // 16가지 모양 모두 매번 querydsl 로 만드는 쿼리와 결과가 같아야 한다
+    @Test
+    public void allShapesMatchQuerydsl() {
+        for (int shape = 0; shape < MemberSearchTemplates.SHAPES; shape++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            if ((shape & MemberSearchTemplates.USERNAME) != 0) condition.setUsername("member3");
+            if ((shape & MemberSearchTemplates.TEAM_NAME) != 0) condition.setTeamName("teamB");
+            if ((shape & MemberSearchTemplates.AGE_GOE) != 0) condition.setAgeGoe(20);
+            if ((shape & MemberSearchTemplates.AGE_LOE) != 0) condition.setAgeLoe(35);
+            
+            List<MemberTeamDto> expected = memberJpaRepository.search(condition);
+            List<MemberTeamDto> actual = memberRepository.search(condition);
+            assertThat(actual).as("shape %d", shape).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+    
+    @Test
+    public void templateReused() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        memberRepository.search(condition);
+        
+        long hits = memberSearchTemplates.stats().hits();
+        condition.setTeamName("teamB");
+        List<MemberTeamDto> result = memberRepository.search(condition);
+        
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("member3", "member4");
+        assertThat(memberSearchTemplates.stats().hits()).isEqualTo(hits + 1);
+    }
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+    }
+}
@@ -0,0 +1,138 @@
+package study.querydsl.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import study.querydsl.CommittedDataTest;
+import study.querydsl.dto.BulkJobResult;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QBulkJobCheckpoint;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+import study.querydsl.support.TableChangeTracker;
+
+// 청크마다 커밋하는 서비스라 @Transactional 롤백 대신 끝나고 직접 지운다
+@SpringBootTest(properties = "member.bulk.chunk-size=3")
+class MemberBulkServiceTest extends CommittedDataTest {
+
+    @Autowired MemberBulkService memberBulkService;
+    @Autowired TableChangeTracker tableChangeTracker;
+    
+    @Test
+    public void updateInChunks() {
+        // 나이 10..100 중 28 미만 (10, 20) 제외하고 8명
+        BulkJobResult result = memberBulkService.update("age-up", QMember.member.age.goe(28),
+                update -> update.set(QMember.member.age, QMember.member.age.add(1)));
+        
+        assertThat(result.rows()).isEqualTo(8);
+        assertThat(result.chunks()).isEqualTo(3); // 3 + 3 + 2
+        assertThat(ages()).containsExactly(10, 20, 31, 41, 51, 61, 71, 81, 91, 101);
+        assertThat(checkpoints()).isZero();
+    }
+    
+    @Test
+    public void bulkChangeNotifiedOncePerJob() {
+        AtomicInteger memberBulkChanges = new AtomicInteger();
+        AtomicBoolean counting = new AtomicBoolean(true);
+        tableChangeTracker.addBulkListener(table -> {
+            if (counting.get() && TableChangeTracker.MEMBER.equals(table)) {
+                memberBulkChanges.incrementAndGet();
+            }
+        });
+        
+        BulkJobResult result = memberBulkService.update("age-up", QMember.member.age.goe(0),
+                update -> update.set(QMember.member.age, QMember.member.age.add(1)));
+        counting.set(false);
+        
+        // 청크는 4번 커밋됐지만 메모리 인덱스들이 다시 읽는건 작업이 끝난 뒤 한번
+        assertThat(result.chunks()).isEqualTo(4);
+        assertThat(memberBulkChanges).hasValue(1);
+    }
+    
+    @Test
+    public void resumeFromCheckpoint() {
+        AtomicInteger calls = new AtomicInteger();
+        assertThatThrownBy(() -> memberBulkService.update("age-up", QMember.member.age.goe(0), update -> {
+            if (calls.incrementAndGet() == 3) {
+                throw new IllegalStateException("boom");
+            }
+            update.set(QMember.member.age, QMember.member.age.add(1));
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(checkpoints()).isOne();
+        
+        BulkJobResult result = memberBulkService.update("age-up", QMember.member.age.goe(0),
+                update -> update.set(QMember.member.age, QMember.member.age.add(1)));
+        
+        assertThat(result.resumedRows()).isEqualTo(6);
+        assertThat(result.rows()).isEqualTo(4);
+        // 모든 회원이 정확히 한번씩
+        assertThat(ages()).containsExactly(11, 21, 31, 41, 51, 61, 71, 81, 91, 101);
+    }
+    
+    @Test
+    public void resumeWithDifferentConditionRejected() {
+        AtomicInteger calls = new AtomicInteger();
+        assertThatThrownBy(() -> memberBulkService.update("age-up", QMember.member.age.goe(0), update -> {
+            if (calls.incrementAndGet() == 2) {
+                throw new IllegalStateException("boom");
+            }
+            update.set(QMember.member.age, QMember.member.age.add(1));
+        })).isInstanceOf(IllegalStateException.class);
+        
+        // 같은 jobName 으로 다른 조건, 다른 set 절
+        assertThatThrownBy(() -> memberBulkService.update("age-up", QMember.member.age.goe(50),
+                update -> update.set(QMember.member.age, QMember.member.age.add(1))))
+                .hasMessageContaining("different condition");
+        assertThatThrownBy(() -> memberBulkService.update("age-up", QMember.member.age.goe(0),
+                update -> update.set(QMember.member.age, QMember.member.age.add(2))))
+                .hasMessageContaining("different condition");
+        assertThatThrownBy(() -> memberBulkService.delete("age-up", QMember.member.age.goe(0)))
+                .hasMessageContaining("different condition");
+        
+        // 거절된 시도는 아무것도 바꾸지 않았다
+        assertThat(ages()).containsExactly(11, 21, 31, 40, 50, 60, 70, 80, 90, 100);
+    }
+    
+    @Test
+    public void deleteInChunks() {
+        BulkJobResult result = memberBulkService.delete("cleanup", QMember.member.age.gt(18));
+        
+        assertThat(result.rows()).isEqualTo(9);
+        assertThat(ages()).containsExactly(10);
+    }
+    
+    private List<Integer> ages() {
+        return tx.execute(status -> new JPAQueryFactory(em)
+                .select(QMember.member.age)
+                .from(QMember.member)
+                .orderBy(QMember.member.id.asc())
+                .fetch());
+    }
+    
+    private long checkpoints() {
+        return tx.execute(status -> new JPAQueryFactory(em)
+                .select(QBulkJobCheckpoint.bulkJobCheckpoint.count())
+                .from(QBulkJobCheckpoint.bulkJobCheckpoint)
+                .fetchOne());
+    }
+
+    @BeforeEach
+    public void before() {
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 1; i <= 10; i++) {
+                em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamB : teamA));
+            }
+        });
+    }
+}
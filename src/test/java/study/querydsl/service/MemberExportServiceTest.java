@@ -0,0 +1,48 @@
+package study.querydsl.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@SpringBootTest
+@Transactional
+class MemberExportServiceTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberExportService memberExportService;
+
+    @Test
+    void exportNdjsonWritesOneObjectPerLine() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.flush();
+        em.clear();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = memberExportService.exportNdjson(new MemberSearchCondition(), out);
+
+        assertThat(rows).isEqualTo(3);
+        String expected = line(member1, teamA) + line(member2, teamA)
+                + "{\"memberId\":" + member3.getId() + ",\"username\":\"member3\",\"age\":30,\"teamId\":null,\"teamName\":null}\n";
+        assertThat(out.toByteArray()).isEqualTo(expected.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String line(Member member, Team team) {
+        return "{\"memberId\":" + member.getId() + ",\"username\":\"" + member.getUsername() + "\",\"age\":"
+                + member.getAge() + ",\"teamId\":" + team.getId() + ",\"teamName\":\"" + team.getName() + "\"}\n";
+    }
+}
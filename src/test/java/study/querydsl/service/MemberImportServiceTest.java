@@ -0,0 +1,68 @@
+package study.querydsl.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import study.querydsl.CommittedDataTest;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.dto.MemberImportResult.Rejection;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.QTeam;
+import study.querydsl.entity.Team;
+
+// 청크마다 커밋하는 서비스라 @Transactional 롤백 대신 끝나고 직접 지운다
+@SpringBootTest(properties = {
+        "member.import.chunk-size=3",
+        "spring.datasource.url=jdbc:h2:mem:member-import"})
+class MemberImportServiceTest extends CommittedDataTest {
+
+    @Autowired MemberImportService memberImportService;
+    
+    @Test
+    public void importCsv() throws IOException {
+        tx.executeWithoutResult(status -> em.persist(new Team("teamA")));
+        String csv = "\uFEFFusername,age,teamName\n"
+                + "member1,10,teamA\n"
+                + "member2,20,teamA\n"
+                + "member3,abc,teamA\n"             // 4: 나이 형식
+                + "\"member, 4\",40,teamB\n"
+                + "\n"
+                + "member5,50,\"team \"\"C\"\"\"\n"
+                + ",60,teamB\n"                     // 8: username 없음
+                + "member7,70\n"                    // 9: 칸 수
+                + "member8,80,\n"                   // 팀 없음
+                + "member9,90,teamB\n";
+        
+        MemberImportResult result = memberImportService.importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        
+        assertThat(result.accepted()).isEqualTo(6);
+        assertThat(result.rejected()).isEqualTo(3);
+        assertThat(result.rejections()).extracting(Rejection::line).containsExactly(4L, 8L, 9L);
+        assertThat(result.teamsCreated()).isEqualTo(2); // teamB, team "C"
+        assertThat(result.commits()).isEqualTo(2);
+        assertThat(result.rowsPerSecond()).isPositive();
+        
+        tx.executeWithoutResult(status -> {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            assertThat(queryFactory.select(QTeam.team.name).from(QTeam.team).orderBy(QTeam.team.id.asc()).fetch())
+                    .containsExactly("teamA", "teamB", "team \"C\"");
+            assertThat(queryFactory.select(QMember.member.username).from(QMember.member)
+                    .where(QMember.member.team.name.eq("teamB")).orderBy(QMember.member.id.asc()).fetch())
+                    .containsExactly("member, 4", "member9");
+            assertThat(queryFactory.select(QMember.member.count()).from(QMember.member)
+                    .where(QMember.member.team.isNull()).fetchOne()).isEqualTo(1);
+        });
+    }
+    
+    @Test
+    public void parse() {
+        assertThat(MemberImportService.parse(" member1 , 10 , teamA ")).isEqualTo(new MemberImportService.Row("member1", 10, "teamA"));
+        assertThat(MemberImportService.split("a,\"b,\"\"c\"\"\",")).containsExactly("a", "b,\"c\"", "");
+    }
+}
@@ -0,0 +1,47 @@
+package study.querydsl.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.CommittedDataTest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+// 내용/count 쿼리가 각자 다른 스레드, 다른 트랜잭션에서 돌기 때문에 데이터는 커밋해두고 끝나면 지운다
+@SpringBootTest
+class MemberPageSearchServiceTest extends CommittedDataTest {
+
+    @Autowired MemberPageSearchService memberPageSearchService;
+    
+    @Test
+    public void searchPageParallel() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        
+        Page<MemberTeamDto> result = memberPageSearchService.searchPageParallel(condition, PageRequest.of(0, 2));
+        
+        assertThat(result.getContent()).extracting("username").containsExactly("member2", "member3");
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result.getTotalPages()).isEqualTo(2);
+    }
+    
+    @Test
+    public void searchPageParallelLastPage() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        
+        Page<MemberTeamDto> result = memberPageSearchService.searchPageParallel(condition, PageRequest.of(0, 5));
+        
+        assertThat(result.getContent()).extracting("username").containsExactly("member3", "member4");
+        assertThat(result.getTotalElements()).isEqualTo(2);
+    }
+
+    @BeforeEach
+    public void before() {
+        saveMembers();
+    }
+}
@@ -0,0 +1,32 @@
+package study.querydsl.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import study.querydsl.CommittedDataTest;
+import study.querydsl.dto.BulkLoadResult;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.QTeam;
+
+// 청크마다 커밋하는 서비스라 @Transactional 롤백 대신 끝나고 직접 지운다
+@SpringBootTest(properties = "member.seed.chunk-size=300")
+class MemberSeedServiceTest extends CommittedDataTest {
+
+    @Autowired MemberSeedService memberSeedService;
+    
+    @Test
+    public void seed() {
+        BulkLoadResult result = memberSeedService.seed(1000, 7);
+        
+        assertThat(result.rows()).isEqualTo(1000);
+        tx.executeWithoutResult(status -> {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            assertThat(queryFactory.select(QMember.member.count()).from(QMember.member).fetchOne()).isEqualTo(1000);
+            assertThat(queryFactory.select(QTeam.team.count()).from(QTeam.team).fetchOne()).isEqualTo(7);
+            assertThat(queryFactory.select(QMember.member.count()).from(QMember.member)
+                    .where(QMember.member.team.name.eq("team3")).fetchOne()).isEqualTo(143);
+        });
+    }
+}
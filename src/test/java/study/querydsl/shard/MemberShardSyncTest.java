@@ -0,0 +1,129 @@
+package study.querydsl.shard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import study.querydsl.CommittedDataTest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.QTeam;
+import study.querydsl.entity.Team;
+import study.querydsl.support.MemberChangeListener.MemberRow;
+
+// 커밋된 변경만 샤드로 가니 @Transactional 롤백 대신 직접 지운다
+@SpringBootTest(properties = {
+        "member.shards.urls=jdbc:h2:mem:sync-shard0,jdbc:h2:mem:sync-shard1,jdbc:h2:mem:sync-shard2",
+        "spring.datasource.url=jdbc:h2:mem:shard-sync"})
+class MemberShardSyncTest extends CommittedDataTest {
+
+    @Autowired MemberShards memberShards;
+    @Autowired MemberShardSync memberShardSync;
+    @Autowired ShardedMemberSearch shardedMemberSearch;
+    
+    @Test
+    public void committedInsertsReachShards() {
+        assertThat(shardedMemberSearch.search(new MemberSearchCondition())).extracting("username")
+                .containsExactly("member1", "member2", "member3", "member4", "member5");
+        
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        assertThat(shardedMemberSearch.search(condition)).extracting("username")
+                .containsExactly("member3", "member4");
+    }
+    
+    @Test
+    public void committedUpdatesAndDeletesReachShards() {
+        long resyncs = memberShardSync.resyncs();
+        tx.executeWithoutResult(status -> {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            Member member1 = queryFactory.selectFrom(QMember.member).where(QMember.member.username.eq("member1")).fetchOne();
+            Team teamB = queryFactory.selectFrom(QTeam.team).where(QTeam.team.name.eq("teamB")).fetchOne();
+            member1.setAge(45);
+            member1.setTeam(teamB); // 다른 샤드로
+            em.remove(queryFactory.selectFrom(QMember.member).where(QMember.member.username.eq("member4")).fetchOne());
+        });
+        
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        assertThat(shardedMemberSearch.search(condition)).extracting("username", "age")
+                .containsExactly(tuple("member1", 45), tuple("member3", 30));
+        assertThat(shardedMemberSearch.searchCount(new MemberSearchCondition())).isEqualTo(4);
+        assertThat(memberShardSync.resyncs()).isEqualTo(resyncs);
+    }
+    
+    @Test
+    public void updateWithoutBeforeState() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+        long id = shardedMemberSearch.search(condition).get(0).getMemberId();
+        long resyncs = memberShardSync.resyncs();
+        
+        // detached 엔티티 merge 처럼 변경 전 상태를 모르는 통지, 팀 없음(0번 샤드)으로
+        memberShardSync.memberUpdated(null, new MemberRow(id, "member1", 11, null));
+        
+        assertThat(shardedMemberSearch.search(condition)).extracting("age", "teamId")
+                .containsExactly(tuple(11, null));
+        assertThat(shardedMemberSearch.searchCount(new MemberSearchCondition())).isEqualTo(5);
+        assertThat(memberShardSync.resyncs()).isEqualTo(resyncs);
+    }
+    
+    @Test
+    public void resyncCopiesExistingRows() {
+        // 샤드를 붙이기 전부터 있던 데이터
+        for (int shard = 0; shard < memberShards.size(); shard++) {
+            memberShards.shard(shard).getJdbcTemplate().update("delete from member");
+            memberShards.shard(shard).getJdbcTemplate().update("delete from team");
+        }
+        
+        memberShardSync.resync();
+        
+        assertThat(shardedMemberSearch.search(new MemberSearchCondition())).extracting("username")
+                .containsExactly("member1", "member2", "member3", "member4", "member5");
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        assertThat(shardedMemberSearch.searchCount(condition)).isEqualTo(2);
+    }
+    
+    @Test
+    public void bulkUpdateResyncs() throws InterruptedException {
+        long resyncs = memberShardSync.resyncs();
+        tx.executeWithoutResult(status -> new JPAQueryFactory(em)
+                .update(QMember.member)
+                .set(QMember.member.age, QMember.member.age.multiply(2))
+                .execute());
+        
+        awaitResyncs(resyncs + 1);
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(60);
+        assertThat(shardedMemberSearch.search(condition)).extracting("username")
+                .containsExactly("member3", "member4", "member5");
+    }
+    
+    private void awaitResyncs(long resyncs) throws InterruptedException {
+        for (int i = 0; i < 500 && !(memberShardSync.resyncs() >= resyncs && memberShardSync.synced()); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(memberShardSync.synced()).isTrue();
+    }
+
+    @BeforeEach
+    public void before() throws InterruptedException {
+        awaitResyncs(0);
+        saveMembers(new Member("member5", 50)); // 팀 없음
+    }
+
+    @Override
+    @AfterEach
+    public void cleanUp() throws InterruptedException {
+        long resyncs = memberShardSync.resyncs();
+        deleteAll();
+        awaitResyncs(resyncs + 1);
+        assertThat(shardedMemberSearch.searchCount(new MemberSearchCondition())).isZero();
+    }
+}
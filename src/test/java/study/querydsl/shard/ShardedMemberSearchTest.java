@@ -0,0 +1,131 @@
+package study.querydsl.shard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.StatementCallback;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.support.MemberChangeListener.MemberRow;
+import study.querydsl.support.QueryDeadline;
+
+@SpringBootTest(properties = {
+        "member.shards.urls=jdbc:h2:mem:shard0,jdbc:h2:mem:shard1,jdbc:h2:mem:shard2",
+        "spring.datasource.url=jdbc:h2:mem:sharded"})
+class ShardedMemberSearchTest {
+
+    @Autowired MemberShards memberShards;
+    @Autowired ShardedMemberSearch shardedMemberSearch;
+    
+    List<MemberRow> rows = new ArrayList<>();
+    
+    @Test
+    public void teamNameGoesToOneShard() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        
+        assertThat(shardedMemberSearch.targetShards(condition)).containsOnlyKeys(memberShards.shardOf(2L));
+        assertThat(shardedMemberSearch.search(condition)).extracting("username")
+                .containsExactly("member2", "member5", "member8");
+    }
+    
+    @Test
+    public void unknownTeam() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamZ");
+        
+        assertThat(shardedMemberSearch.targetShards(condition)).isEmpty();
+        assertThat(shardedMemberSearch.search(condition)).isEmpty();
+        assertThat(shardedMemberSearch.searchCount(condition)).isZero();
+    }
+    
+    @Test
+    public void scatterGatherInIdOrder() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(30);
+        condition.setAgeLoe(90);
+        
+        assertThat(shardedMemberSearch.targetShards(condition)).hasSize(3);
+        assertThat(shardedMemberSearch.search(condition)).extracting(MemberTeamDto::getMemberId)
+                .containsExactly(3L, 4L, 5L, 6L, 7L, 8L, 9L);
+    }
+    
+    @Test
+    public void pagesMatchSingleDatabase() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        List<MemberTeamDto> all = shardedMemberSearch.search(condition);
+        assertThat(all).extracting(MemberTeamDto::getMemberId)
+                .containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+        
+        for (int page = 0; page < 4; page++) {
+            Page<MemberTeamDto> result = shardedMemberSearch.searchPageComplex(condition, PageRequest.of(page, 3));
+            
+            assertThat(result.getContent()).isEqualTo(all.subList(Math.min(page * 3, 10), Math.min(page * 3 + 3, 10)));
+            assertThat(result.getTotalElements()).isEqualTo(10);
+        }
+    }
+    
+    @Test
+    public void changeTeamMovesShard() {
+        MemberRow member1 = rows.get(0);
+        MemberRow moved = new MemberRow(member1.id(), member1.username(), member1.age(), 2L);
+        shardedMemberSearch.update(moved);
+        
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        assertThat(shardedMemberSearch.search(condition)).extracting("username")
+                .containsExactly("member1", "member2", "member5", "member8");
+        assertThat(shardedMemberSearch.searchCount(new MemberSearchCondition())).isEqualTo(10);
+    }
+    
+    @Test
+    public void shardStatementsGetRemainingTime() {
+        QueryDeadline.begin(Duration.ofMillis(300));
+        
+        assertThat(memberShards.shard(1).getJdbcTemplate().execute((StatementCallback<Integer>) Statement::getQueryTimeout))
+                .isEqualTo(1);
+    }
+    
+    @Test
+    public void expiredDeadlineSendsNoShardQuery() {
+        QueryDeadline.begin(Duration.ZERO);
+        MemberSearchCondition condition = new MemberSearchCondition();
+        
+        assertThatThrownBy(() -> shardedMemberSearch.search(condition)).isInstanceOf(QueryTimeoutException.class);
+        condition.setTeamName("teamB"); // 한 샤드면 호출 스레드에서
+        assertThatThrownBy(() -> shardedMemberSearch.searchCount(condition)).isInstanceOf(QueryTimeoutException.class);
+    }
+    
+    @BeforeEach
+    public void before() {
+        shardedMemberSearch.saveTeam(1L, "teamA");
+        shardedMemberSearch.saveTeam(2L, "teamB");
+        shardedMemberSearch.saveTeam(3L, "teamC");
+        // member1..9 는 teamA, teamB, teamC 순으로, member10 은 팀 없음
+        for (int i = 1; i <= 10; i++) {
+            MemberRow row = new MemberRow(i, "member" + i, i * 10, i == 10 ? null : (long) ((i - 1) % 3 + 1));
+            shardedMemberSearch.save(row);
+            rows.add(row);
+        }
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        QueryDeadline.end();
+        for (int shard = 0; shard < memberShards.size(); shard++) {
+            memberShards.shard(shard).getJdbcTemplate().update("delete from member");
+            memberShards.shard(shard).getJdbcTemplate().update("delete from team");
+        }
+    }
+}
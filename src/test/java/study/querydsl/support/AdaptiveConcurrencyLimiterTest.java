@@ -0,0 +1,69 @@
+package study.querydsl.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLIS = 1_000_000;
+    
+    @Test
+    public void rejectsOverLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 2);
+        
+        assertThat(limiter.tryAcquire()).isEqualTo(1);
+        assertThat(limiter.tryAcquire()).isEqualTo(2);
+        assertThat(limiter.tryAcquire()).isEqualTo(-1);
+        assertThat(limiter.rejected()).isEqualTo(1);
+        
+        limiter.release(10 * MILLIS, 2, false);
+        assertThat(limiter.tryAcquire()).isEqualTo(2);
+    }
+    
+    @Test
+    public void shrinksWhenLatencyGrowsAndRecovers() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 40);
+        saturate(limiter, 10 * MILLIS, 200);
+        assertThat(limiter.limit()).isEqualTo(40); // 평소 응답시간이면 최대값 유지
+        
+        saturate(limiter, 80 * MILLIS, 50); // 줄을 서기 시작
+        int shrunk = limiter.limit();
+        assertThat(shrunk).isLessThan(20);
+        
+        saturate(limiter, 10 * MILLIS, 200);
+        assertThat(limiter.limit()).isGreaterThan(shrunk);
+    }
+    
+    @Test
+    public void idleSamplesDoNotMoveLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 40);
+        saturate(limiter, 10 * MILLIS, 100);
+        
+        for (int i = 0; i < 50; i++) {
+            int inFlight = limiter.tryAcquire();
+            limiter.release(80 * MILLIS, inFlight, false); // 한건씩, 상한의 반도 안 찼다
+        }
+        
+        assertThat(limiter.limit()).isEqualTo(40);
+    }
+    
+    @Test
+    public void backsOffOnDrops() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 10);
+        
+        for (int i = 0; i < 30; i++) {
+            int inFlight = limiter.tryAcquire();
+            limiter.release(10 * MILLIS, inFlight, true);
+        }
+        
+        assertThat(limiter.limit()).isEqualTo(2);
+    }
+    
+    // 상한까지 채운 상태에서 끝나는 요청의 응답시간
+    private static void saturate(AdaptiveConcurrencyLimiter limiter, long rttNanos, int samples) {
+        for (int i = 0; i < samples; i++) {
+            limiter.tryAcquire();
+            limiter.release(rttNanos, limiter.limit(), false);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package study.querydsl.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.QTeam;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+@SpringBootTest(properties = "member.n-plus-one.threshold=2")
+@Transactional
+class LazyLoadDetectorTest {
+
+    @Autowired
+    EntityManager em;
+    
+    @Autowired LazyLoadDetector lazyLoadDetector;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    
+    JPAQueryFactory queryFactory;
+    
+    @Test
+    public void detectsLazyTeamLoading() {
+        lazyLoadDetector.begin("test");
+        List<Member> members = queryFactory.selectFrom(QMember.member).fetch();
+        members.forEach(m -> m.getTeam().getName()); // 팀마다 select
+        List<LazyLoadDetector.Offender> offenders = lazyLoadDetector.end();
+        
+        assertThat(offenders).hasSize(1);
+        assertThat(offenders.get(0).role()).isEqualTo(Team.class.getName());
+        assertThat(offenders.get(0).count()).isEqualTo(2);
+        assertThat(offenders.get(0).callSite()).contains("LazyLoadDetectorTest.lambda$detectsLazyTeamLoading");
+    }
+    
+    @Test
+    @StatementBudget(1)
+    public void fetchJoinHasNoOffenders() {
+        lazyLoadDetector.begin("test");
+        List<Member> members = queryFactory
+                .selectFrom(QMember.member)
+                .join(QMember.member.team, QTeam.team).fetchJoin()
+                .fetch();
+        members.forEach(m -> m.getTeam().getName());
+        
+        assertThat(lazyLoadDetector.end()).isEmpty();
+    }
+    
+    @Test
+    @StatementBudget(2) // 팀명 -> id 조회 + 검색
+    public void searchStaysWithinBudget() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        
+        assertThat(memberJpaRepository.search(condition)).hasSize(2);
+    }
+
+    @BeforeEach
+    public void before() {
+        queryFactory = new JPAQueryFactory(em);
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        
+        // 테스트 본문에는 조회 SQL 만 남도록
+        em.flush();
+        em.clear();
+    }
+}
@@ -0,0 +1,57 @@
+package study.querydsl.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import study.querydsl.CommittedDataTest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+
+// 커밋 후 버전이 바뀌는지 봐야해서 @Transactional 롤백 대신 직접 지운다
+@SpringBootTest
+class MemberSearchETagTest extends CommittedDataTest {
+
+    @Autowired MemberSearchETag memberSearchETag;
+    
+    @Test
+    public void sameInputSameETag() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        MemberSearchCondition blank = new MemberSearchCondition();
+        blank.setTeamName("teamA");
+        blank.setUsername(""); // 빈 문자열은 조건 없음
+        
+        String etag = memberSearchETag.of("v2", condition, PageRequest.of(0, 20));
+        
+        assertThat(memberSearchETag.of("v2", blank, PageRequest.of(0, 20))).isEqualTo(etag);
+        assertThat(memberSearchETag.of("v3", condition, PageRequest.of(0, 20))).isNotEqualTo(etag);
+        assertThat(memberSearchETag.of("v2", condition, PageRequest.of(1, 20))).isNotEqualTo(etag);
+    }
+    
+    @Test
+    public void changesOnWrite() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        String initial = memberSearchETag.of("v2", condition, PageRequest.of(0, 20));
+        
+        tx.executeWithoutResult(status -> {
+            Team team = new Team("teamA");
+            em.persist(team);
+            em.persist(new Member("member1", 10, team));
+        });
+        String afterInsert = memberSearchETag.of("v2", condition, PageRequest.of(0, 20));
+        assertThat(afterInsert).isNotEqualTo(initial);
+        assertThat(memberSearchETag.of("v2", condition, PageRequest.of(0, 20))).isEqualTo(afterInsert);
+        
+        // querydsl 벌크 update 도
+        tx.executeWithoutResult(status -> new JPAQueryFactory(em)
+                .update(QMember.member)
+                .set(QMember.member.age, QMember.member.age.add(1))
+                .execute());
+        assertThat(memberSearchETag.of("v2", condition, PageRequest.of(0, 20))).isNotEqualTo(afterInsert);
+    }
+}
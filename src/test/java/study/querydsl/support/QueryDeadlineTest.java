@@ -0,0 +1,123 @@
+package study.querydsl.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import javax.sql.DataSource;
+import org.hibernate.jpa.SpecHints;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.StatementCallback;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.QMember;
+import study.querydsl.repository.MemberJdbcSearch;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.TeamNameLookup;
+
+@SpringBootTest
+@Transactional
+class QueryDeadlineTest {
+
+    @Autowired
+    EntityManager em;
+    
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired MemberJdbcSearch memberJdbcSearch;
+    @Autowired TeamNameLookup teamNameLookup;
+    @Autowired DataSource dataSource;
+    
+    @Test
+    public void timeoutHintRoundedUpToSeconds() {
+        QueryDeadline.begin(Duration.ofMillis(300)); // 반올림이면 0 (타임아웃 없음) 이 된다
+        
+        Object hint = new DeadlineJPAQueryFactory(em).selectFrom(QMember.member).createQuery()
+                .getHints().get(SpecHints.HINT_SPEC_QUERY_TIMEOUT);
+        
+        assertThat(hint).isEqualTo(1000);
+    }
+    
+    @Test
+    public void noDeadlineNoHint() {
+        Object hint = new DeadlineJPAQueryFactory(em).selectFrom(QMember.member).createQuery()
+                .getHints().get(SpecHints.HINT_SPEC_QUERY_TIMEOUT);
+        
+        assertThat(hint).isNull();
+    }
+    
+    @Test
+    public void expiredDeadlineSendsNoQuery() {
+        QueryDeadline.begin(Duration.ZERO);
+        
+        List<String> sql = SqlCapture.capture(() -> assertThatThrownBy(
+                () -> memberJpaRepository.search(new MemberSearchCondition()))
+                .isInstanceOf(QueryTimeoutException.class));
+        
+        assertThat(sql).isEmpty();
+    }
+    
+    @Test
+    public void propagatesToOtherThread() throws Exception {
+        QueryDeadline.begin(Duration.ofSeconds(5));
+        
+        Duration remaining = CompletableFuture.supplyAsync(QueryDeadline.propagate(QueryDeadline::remaining)).get();
+        
+        assertThat(remaining).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(5));
+        assertThat(CompletableFuture.supplyAsync(QueryDeadline::remaining).get()).isNull();
+    }
+    
+    @Test
+    public void propagateCapsDeadline() throws Exception {
+        long latest = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        
+        // 마감이 없어도 latest 까지
+        Duration capped = CompletableFuture.supplyAsync(QueryDeadline.propagate(QueryDeadline::remaining, latest)).get();
+        assertThat(capped).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(2));
+        
+        // 더 이른 요청 마감은 그대로
+        QueryDeadline.begin(Duration.ofMillis(500));
+        Duration earlier = CompletableFuture.supplyAsync(QueryDeadline.propagate(QueryDeadline::remaining, latest)).get();
+        assertThat(earlier).isLessThanOrEqualTo(Duration.ofMillis(500));
+    }
+    
+    @Test
+    public void jdbcQueryTimeoutRoundedUpToSeconds() {
+        DeadlineJdbcTemplate jdbcTemplate = new DeadlineJdbcTemplate(dataSource);
+        
+        assertThat(jdbcTemplate.execute((StatementCallback<Integer>) Statement::getQueryTimeout)).isZero();
+        QueryDeadline.begin(Duration.ofMillis(300));
+        assertThat(jdbcTemplate.execute((StatementCallback<Integer>) Statement::getQueryTimeout)).isEqualTo(1);
+    }
+    
+    @Test
+    public void expiredDeadlineSendsNoJdbcQuery() {
+        QueryDeadline.begin(Duration.ZERO);
+        
+        assertThatThrownBy(() -> memberJdbcSearch.search(new MemberSearchCondition()))
+                .isInstanceOf(QueryTimeoutException.class);
+        assertThatThrownBy(() -> memberJdbcSearch.searchColumns(new MemberSearchCondition()))
+                .isInstanceOf(QueryTimeoutException.class);
+    }
+    
+    @Test
+    public void expiredDeadlineFailsLookups() {
+        QueryDeadline.begin(Duration.ZERO);
+        
+        assertThatThrownBy(() -> teamNameLookup.findIds("deadline-test")) // 맵에 없는 팀명
+                .isInstanceOf(QueryTimeoutException.class);
+        assertThatThrownBy(() -> memberJpaRepository.findAllByIds(List.of(1L, 2L)))
+                .isInstanceOf(QueryTimeoutException.class);
+    }
+    
+    @AfterEach
+    public void cleanUp() {
+        QueryDeadline.end();
+    }
+}
@@ -0,0 +1,53 @@
+package study.querydsl.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.EntityManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.QueryPlanAdvisor.ShapePlan;
+import study.querydsl.support.QueryPlanAdvisor.StatementPlan;
+
+@SpringBootTest
+@Transactional
+class QueryPlanAdvisorTest {
+
+    @Autowired
+    EntityManager em;
+    
+    @Autowired QueryPlanAdvisor queryPlanAdvisor;
+    
+    @Test
+    public void everyShapeUsesIndex() {
+        List<ShapePlan> plans = queryPlanAdvisor.explainAllShapes();
+        for (ShapePlan plan : plans) {
+            System.out.println("shape " + plan.conditions() + " tableScan=" + plan.tableScan());
+            for (StatementPlan statement : plan.statements()) {
+                System.out.println("  " + statement.plan().replaceAll("\\s+", " "));
+            }
+        }
+        
+        assertThat(plans).hasSize(16);
+        assertThat(plans.get(0).statements()).isNotEmpty();
+        assertThat(plans).filteredOn(ShapePlan::tableScan).isEmpty();
+    }
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+    }
+}
@@ -0,0 +1,75 @@
+package study.querydsl.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJpaRepository;
+
+// primary/replica 를 같은 메모리 DB 로 두고 어느 풀에서 커넥션을 얻었는지만 본다
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing",
+        "member.datasource.replica.url=jdbc:h2:mem:routing"})
+class ReplicaRoutingDataSourceTest {
+
+    @Autowired
+    EntityManager em;
+    
+    @Autowired ReplicaRoutingDataSource routingDataSource;
+    @Autowired HikariDataSource primaryDataSource;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    
+    @Test
+    public void readOnlyGoesToReplica() {
+        long before = routingDataSource.replicaConnections();
+        
+        memberJpaRepository.search(new MemberSearchCondition());
+        assertThat(routingDataSource.replicaConnections()).isEqualTo(before + 1);
+        
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.createNativeQuery("select 1").getSingleResult());
+        assertThat(routingDataSource.replicaConnections()).isEqualTo(before + 1);
+    }
+    
+    @Test
+    public void fallsBackToPrimaryWhenReplicaIsDown() throws SQLException {
+        AtomicInteger replicaAttempts = new AtomicInteger();
+        DataSource deadReplica = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/nope") {
+            @Override
+            public Connection getConnection() throws SQLException {
+                replicaAttempts.incrementAndGet();
+                return super.getConnection();
+            }
+        };
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primaryDataSource, deadReplica,
+                Duration.ofMinutes(1));
+        
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            try (Connection connection = dataSource.getConnection()) {
+                assertThat(connection.isValid(1)).isTrue();
+            }
+            assertThat(dataSource.isReplicaHealthy()).isFalse();
+            
+            // retry-interval 동안은 replica 를 다시 시도하지 않는다
+            dataSource.getConnection().close();
+            assertThat(replicaAttempts).hasValue(1);
+            assertThat(dataSource.fallbacks()).isEqualTo(2);
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package study.querydsl.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+@SpringBootTest
+@Transactional
+class RepositoryMetricsAspectTest {
+
+    @Autowired
+    EntityManager em;
+    
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired MeterRegistry meterRegistry;
+    
+    @Test
+    public void searchIsTimedWithShape() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(35);
+        
+        // 같은 컨텍스트를 쓰는 다른 테스트도 기록하므로 증가분으로 비교
+        long callsBefore = timerCount();
+        double rowsBefore = rowsTotal();
+
+        memberJpaRepository.search(condition);
+
+        assertThat(timerCount() - callsBefore).isEqualTo(1);
+        assertThat(rowsTotal() - rowsBefore).isEqualTo(1);
+    }
+    
+    private long timerCount() {
+        Timer timer = meterRegistry.find("member.repository")
+                .tags("class", "MemberJpaRepository", "method", "search", "shape", "teamName+ageGoe")
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private double rowsTotal() {
+        DistributionSummary rows = meterRegistry.find("member.repository.rows")
+                .tags("class", "MemberJpaRepository", "method", "search", "shape", "teamName+ageGoe")
+                .summary();
+        return rows == null ? 0 : rows.totalAmount();
+    }
+
+    @Test
+    public void countsStatements() {
+        SqlStatementCounter.start();
+        try {
+            memberJpaRepository.findAll_querydsl();
+            assertThat(SqlStatementCounter.current()).isGreaterThanOrEqualTo(1);
+        } finally {
+            SqlStatementCounter.stop();
+        }
+    }
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+    }
+}
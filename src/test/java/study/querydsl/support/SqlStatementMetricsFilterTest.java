@@ -0,0 +1,45 @@
+package study.querydsl.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import study.querydsl.CommittedDataTest;
+
+// /v3/members 는 내용/count 쿼리를 다른 스레드, 다른 트랜잭션에서 돌리니 데이터는 커밋해두고 끝나면 지운다
+@SpringBootTest
+@AutoConfigureMockMvc
+class SqlStatementMetricsFilterTest extends CommittedDataTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired MeterRegistry meterRegistry;
+
+    @Test
+    public void countsStatementsFromParallelPageQueries() throws Exception {
+        double before = statementsTotal("/v3/members");
+
+        // 결과 캐시에 없는 조건
+        mockMvc.perform(get("/v3/members").param("ageGoe", "21").param("page", "0").param("size", "2"))
+                .andExpect(status().isOk());
+
+        // 요청 스레드에서는 SQL 이 안나가고 내용 쿼리는 memberQueryExecutor 스레드에서 나간다
+        assertThat(statementsTotal("/v3/members") - before).isGreaterThanOrEqualTo(1);
+    }
+
+    private double statementsTotal(String uri) {
+        DistributionSummary summary = meterRegistry.find("http.server.sql.statements").tags("uri", uri).summary();
+        return summary == null ? 0 : summary.totalAmount();
+    }
+
+    @BeforeEach
+    public void before() {
+        saveMembers();
+    }
+}
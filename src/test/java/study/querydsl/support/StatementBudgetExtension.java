@@ -0,0 +1,27 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.opentest4j.AssertionFailedError;
+
+/**
+ * {@link StatementBudget} 를 넘는 SQL 이 나가면 테스트를 실패시킨다
+ */
+public class StatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        SqlStatementCounter.start();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        long statements = SqlStatementCounter.stop();
+        StatementBudget budget = context.getRequiredTestMethod().getAnnotation(StatementBudget.class);
+        if (budget != null && statements > budget.value()) {
+            throw new AssertionFailedError(context.getDisplayName() + ": SQL " + statements
+                    + "개 실행, 허용 " + budget.value() + "개", budget.value(), statements);
+        }
+    }
+}